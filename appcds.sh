@@ -0,0 +1,124 @@
+#!/usr/bin/env bash
+
+# AppCDS helpers for the wiki fat jars (step-8 and step-10).
+#
+#   train:     creates a dynamic AppCDS archive (JDK 13+) from a training run of the fat jar. The application serves a
+#              first page and is then stopped: the classes it loaded are dumped to the archive when the JVM exits.
+#   benchmark: measures the time from launching the fat jar to the first successful GET, without and with the archive.
+#
+# Each run starts in a scratch directory, so that the database is created from scratch every time.
+# The application must answer within MAX_ATTEMPTS polls of POLL_INTERVAL seconds, otherwise the script fails.
+#
+# Usage: appcds.sh train|benchmark <fat jar> <archive> <url>
+#
+# Example: ./appcds.sh benchmark step-10/target/wiki-step-10-1.5.0-fat.jar step-10/target/wiki-step-10.jsa http://localhost:8080/
+
+set -euo pipefail
+
+if [ $# -ne 4 ]; then
+  echo "Usage: $0 train|benchmark <fat jar> <archive> <url>" >&2
+  exit 2
+fi
+
+COMMAND=$1
+JAR=$(realpath "$2")
+ARCHIVE=$(realpath -m "$3")
+URL=$4
+MAX_ATTEMPTS=${MAX_ATTEMPTS:-6000}
+POLL_INTERVAL=${POLL_INTERVAL:-0.01}
+RUNS=${RUNS:-5}
+
+# Polls the URL until it answers, fails if the application stops or does not answer in time.
+wait_for_first_page() {
+  local pid=$1
+  local log=$2
+  for ((attempt = 0; attempt < MAX_ATTEMPTS; attempt++)); do
+    if curl -k -s -f -L -o /dev/null "$URL"; then
+      return 0
+    fi
+    if ! kill -0 "$pid" 2> /dev/null; then
+      cat "$log" >&2
+      echo "The application stopped before serving $URL" >&2
+      return 1
+    fi
+    sleep "$POLL_INTERVAL"
+  done
+  cat "$log" >&2
+  echo "No answer from $URL after $MAX_ATTEMPTS attempts" >&2
+  return 1
+}
+
+stop() {
+  kill -TERM "$1"
+  wait "$1" || true
+}
+
+train() {
+  local workdir
+  workdir=$(mktemp -d)
+  cd "$workdir"
+  java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dhsqldb.reconfig_logging=false -jar "$JAR" > training.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2> /dev/null || true; rm -rf '$workdir'" EXIT
+  wait_for_first_page $pid training.log
+  stop $pid
+  if [ ! -f "$ARCHIVE" ]; then
+    cat training.log
+    echo "No archive was created: AppCDS dynamic archives need JDK 13 or later" >&2
+    exit 1
+  fi
+  echo "Created $ARCHIVE"
+}
+
+time_to_first_page() {
+  local workdir
+  workdir=$(mktemp -d)
+  pushd "$workdir" > /dev/null
+  local start
+  start=$(date +%s%N)
+  java "$@" -Dhsqldb.reconfig_logging=false -jar "$JAR" > run.log 2>&1 &
+  local pid=$!
+  if ! wait_for_first_page $pid run.log; then
+    kill $pid 2> /dev/null || true
+    rm -rf "$workdir"
+    return 1
+  fi
+  local end
+  end=$(date +%s%N)
+  stop $pid
+  popd > /dev/null
+  rm -rf "$workdir"
+  echo $(((end - start) / 1000000))
+}
+
+benchmark() {
+  local name=$1
+  shift
+  local total=0
+  local times=()
+  for ((run = 0; run < RUNS; run++)); do
+    local ms
+    ms=$(time_to_first_page "$@")
+    times+=("$ms")
+    total=$((total + ms))
+  done
+  printf "%-10s mean %5d ms  (runs: %s)\n" "$name" $((total / RUNS)) "${times[*]}"
+}
+
+case "$COMMAND" in
+  train)
+    train
+    ;;
+  benchmark)
+    if [ ! -f "$ARCHIVE" ]; then
+      echo "No archive at $ARCHIVE: run '$0 train' (or mvn -Pappcds package) first" >&2
+      exit 1
+    fi
+    benchmark "default" -Xshare:auto
+    benchmark "appcds" -XX:SharedArchiveFile="$ARCHIVE"
+    ;;
+  *)
+    echo "Unknown command: $COMMAND (expected train or benchmark)" >&2
+    exit 2
+    ;;
+esac
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.vertx.guides.wiki.markdown.MarkdownRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link MarkdownRenderer} implementations per document size class. Run with {@code -prof gc} (the
+ * default of {@code mvn exec:exec}) to get the allocation rate normalized per rendered document.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownRendererBenchmark {
+
+  private static final int CORPUS_SIZE = 16;
+
+  @Param({"txtmark", "commonmark"})
+  public String renderer;
+
+  @Param({"SMALL", "MEDIUM", "LARGE"})
+  public WikiCorpus.SizeClass sizeClass;
+
+  private MarkdownRenderer markdownRenderer;
+  private String[] corpus;
+  private int next;
+
+  @Setup
+  public void setup() {
+    markdownRenderer = MarkdownRenderer.named(renderer);
+    corpus = WikiCorpus.generate(sizeClass, CORPUS_SIZE, 42L);
+  }
+
+  @Benchmark
+  public String render() {
+    next = (next + 1) % CORPUS_SIZE;
+    return markdownRenderer.render(corpus[next]);
+  }
+}
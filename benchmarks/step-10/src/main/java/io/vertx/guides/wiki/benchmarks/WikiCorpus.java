@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic generator of wiki-like Markdown pages: headings, paragraphs with inline markup and links, lists, quotes
+ * and fenced code, in the proportions of typical documentation pages.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public final class WikiCorpus {
+
+  public enum SizeClass {
+    SMALL(1024),
+    MEDIUM(32 * 1024),
+    LARGE(512 * 1024);
+
+    final int length;
+
+    SizeClass(int length) {
+      this.length = length;
+    }
+  }
+
+  private static final String[] WORDS = {
+    "vert.x", "event", "loop", "verticle", "handler", "the", "a", "of", "to", "and", "is", "in", "page", "wiki",
+    "message", "bus", "service", "proxy", "database", "query", "router", "request", "response", "reactive",
+    "asynchronous", "callback", "future", "promise", "cluster", "deploy", "configuration", "with", "for", "that"
+  };
+
+  private WikiCorpus() {
+  }
+
+  public static String[] generate(SizeClass sizeClass, int count, long seed) {
+    Random random = new Random(seed);
+    String[] pages = new String[count];
+    for (int i = 0; i < count; i++) {
+      pages[i] = page(sizeClass.length, random);
+    }
+    return pages;
+  }
+
+  public static String page(int length, Random random) {
+    StringBuilder page = new StringBuilder(length + 512);
+    page.append("# ").append(sentence(random, 4)).append("\n\n");
+    while (page.length() < length) {
+      int kind = random.nextInt(10);
+      if (kind < 5) {
+        paragraph(page, random);
+      } else if (kind < 6) {
+        page.append("## ").append(sentence(random, 3)).append("\n\n");
+      } else if (kind < 8) {
+        for (int i = 0, n = 2 + random.nextInt(5); i < n; i++) {
+          page.append("- ").append(sentence(random, 6 + random.nextInt(6))).append('\n');
+        }
+        page.append('\n');
+      } else if (kind < 9) {
+        page.append("> ").append(sentence(random, 15)).append("\n\n");
+      } else {
+        page.append("```\n");
+        for (int i = 0, n = 3 + random.nextInt(10); i < n; i++) {
+          page.append("  vertx.eventBus().send(\"").append(word(random)).append("\", payload);\n");
+        }
+        page.append("```\n\n");
+      }
+    }
+    return page.toString();
+  }
+
+  private static void paragraph(StringBuilder page, Random random) {
+    for (int i = 0, n = 20 + random.nextInt(60); i < n; i++) {
+      int markup = random.nextInt(20);
+      String word = word(random);
+      if (markup == 0) {
+        page.append('*').append(word).append('*');
+      } else if (markup == 1) {
+        page.append("**").append(word).append("**");
+      } else if (markup == 2) {
+        page.append('`').append(word).append('`');
+      } else if (markup == 3) {
+        page.append('[').append(word).append("](/wiki/").append(word).append(')');
+      } else {
+        page.append(word);
+      }
+      page.append(i % 12 == 11 ? ".\n" : " ");
+    }
+    page.append("\n\n");
+  }
+
+  private static String sentence(Random random, int words) {
+    StringBuilder sentence = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      if (i > 0) {
+        sentence.append(' ');
+      }
+      sentence.append(word(random));
+    }
+    return sentence.toString();
+  }
+
+  private static String word(Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+}
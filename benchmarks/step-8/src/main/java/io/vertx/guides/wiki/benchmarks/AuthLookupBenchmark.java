@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.reactivex.Flowable;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.http.AuthInitializerVerticle;
+import io.vertx.guides.wiki.auth.JDBCAuthorities;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.auth.jdbc.JDBCAuth;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * Login and permission lookups of random users among a growing number of provisioned users, on the key-less tables of
+ * earlier versions ({@code legacy}) and on the keyed schema created by {@link AuthInitializerVerticle} ({@code keyed}).
+ * With the keyed schema the throughput should not depend on the number of users.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AuthLookupBenchmark {
+
+  private static final String JDBC_URL = "jdbc:hsqldb:mem:authlookup;shutdown=true";
+
+  /*
+   * Password: bar (same salt and hash as the 'foo' sample user)
+   */
+  private static final String PASSWORD_HASH = "C3F0D72C1C3C8A11525B4563BAFF0E0F169114DE36796A595B78A373C522C0FF81BC2A683E2CB882A077847E8FD4DA09F1993072A4E9D7671313E4E5DB898F4E";
+  private static final String PASSWORD_SALT = "017DC3D7F89CD5E873B16E6CCE9A2307C8E3D9C5758741EEE49A899FFBC379D8";
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"legacy", "keyed"})
+  public String schema;
+
+  @Param({"1000", "100000"})
+  public int users;
+
+  private Vertx vertx;
+  private JDBCAuth auth;
+  private JDBCAuthorities authorities;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", JDBC_URL)
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS)
+      .put("max_pool_size", 16));
+
+    if ("keyed".equals(schema)) {
+      vertx.rxDeployVerticle(AuthInitializerVerticle.class.getName(), new DeploymentOptions()
+        .setConfig(new JsonObject().put(CONFIG_WIKIDB_JDBC_URL, JDBC_URL)))
+        .blockingGet();
+    } else {
+      dbClient.rxGetConnection()
+        .flatMap(connection -> connection.rxBatch(Arrays.asList(
+          "create table user (username varchar(255), password varchar(255), password_salt varchar(255))",
+          "create table user_roles (username varchar(255), role varchar(255))",
+          "create table roles_perms (role varchar(255), perm varchar(255))",
+          "insert into roles_perms values ('writer', 'update')",
+          "insert into roles_perms values ('editor', 'create')",
+          "insert into roles_perms values ('editor', 'delete')",
+          "insert into roles_perms values ('editor', 'update')"))
+          .doFinally(connection::close))
+        .blockingGet();
+    }
+
+    Flowable.range(0, (users + BATCH_SIZE - 1) / BATCH_SIZE)
+      .concatMapCompletable(batch -> dbClient.rxGetConnection().flatMapCompletable(connection -> {
+        List<JsonArray> userRows = new ArrayList<>();
+        List<JsonArray> roleRows = new ArrayList<>();
+        for (int i = batch * BATCH_SIZE; i < Math.min(users, (batch + 1) * BATCH_SIZE); i++) {
+          userRows.add(new JsonArray().add("user-" + i).add(PASSWORD_HASH).add(PASSWORD_SALT));
+          roleRows.add(new JsonArray().add("user-" + i).add(i % 10 == 0 ? "editor" : "writer"));
+        }
+        return connection.rxBatchWithParams("insert into user values (?, ?, ?)", userRows)
+          .flatMap(rs -> connection.rxBatchWithParams("insert into user_roles values (?, ?)", roleRows))
+          .ignoreElement()
+          .doFinally(connection::close);
+      }))
+      .blockingAwait();
+
+    auth = JDBCAuth.create(vertx, dbClient);
+    authorities = JDBCAuthorities.create(dbClient);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.rxClose().blockingAwait();
+  }
+
+  @Benchmark
+  public JsonObject loginAndAuthorities() {
+    String username = "user-" + ThreadLocalRandom.current().nextInt(users);
+    return auth.rxAuthenticate(new JsonObject().put("username", username).put("password", "bar"))
+      .flatMap(user -> authorities.rxLoad(username))
+      .blockingGet();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.jwt.JWTOptions;
+import io.vertx.guides.wiki.http.CachingJWTAuth;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.auth.User;
+import io.vertx.reactivex.ext.auth.jwt.JWTAuth;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU time of verifying the bearer token of an API request, with the plain {@code JWTAuth} provider and with
+ * {@link CachingJWTAuth}. Clients are simulated by a small set of tokens that are each sent repeatedly.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  private static final int CLIENTS = 64;
+
+  @Param({"false", "true"})
+  public boolean cache;
+
+  private Vertx vertx;
+  private JWTAuth jwtAuth;
+  private JsonObject[] requests;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    JWTAuth provider = JWTAuth.create(vertx, new JWTAuthOptions()
+      .addPubSecKey(new PubSecKeyOptions()
+        .setAlgorithm("HS256")
+        .setPublicKey("secret")
+        .setSymmetric(true)));
+    jwtAuth = cache ? JWTAuth.newInstance(new CachingJWTAuth(provider.getDelegate(), 10_000)) : provider;
+
+    requests = new JsonObject[CLIENTS];
+    for (int i = 0; i < CLIENTS; i++) {
+      String token = provider.generateToken(new JsonObject()
+          .put("username", "user-" + i)
+          .put("canCreate", true)
+          .put("canDelete", false)
+          .put("canUpdate", true),
+        new JWTOptions()
+          .setSubject("Wiki API")
+          .setIssuer("Vert.x"));
+      requests[i] = new JsonObject().put("jwt", token).put("options", new JsonObject());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.rxClose().blockingAwait();
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+    int next;
+  }
+
+  @Benchmark
+  public User verify(Client client) {
+    client.next = (client.next + 1) % CLIENTS;
+    return jwtAuth.rxAuthenticate(requests[client.next]).blockingGet();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.guides.wiki.http.PartitionedSessionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the session store operations of a request with an existing session (a {@code get}, then a {@code put}
+ * of the accessed session), with {@code LocalSessionStore} and with {@link PartitionedSessionStore}.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class SessionStoreBenchmark {
+
+  private static final long SESSION_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+  @Param({"local", "partitioned"})
+  public String store;
+
+  @Param({"10000"})
+  public int sessions;
+
+  private Vertx vertx;
+  private SessionStore sessionStore;
+  private String[] ids;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    sessionStore = "local".equals(store)
+      ? LocalSessionStore.create(vertx)
+      : PartitionedSessionStore.create(vertx, 16, 30_000L);
+    ids = new String[sessions];
+    for (int i = 0; i < sessions; i++) {
+      Session session = sessionStore.createSession(SESSION_TIMEOUT);
+      session.put("username", "user-" + i);
+      CompletableFuture<Void> stored = new CompletableFuture<>();
+      sessionStore.put(session, ar -> stored.complete(null));
+      stored.join();
+      ids[i] = session.id();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    sessionStore.close();
+    CompletableFuture<Void> closed = new CompletableFuture<>();
+    vertx.close(ar -> closed.complete(null));
+    closed.join();
+  }
+
+  @Benchmark
+  public Void request() {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    sessionStore.get(ids[ThreadLocalRandom.current().nextInt(sessions)], get -> {
+      if (get.failed() || get.result() == null) {
+        done.completeExceptionally(new IllegalStateException("Session not found"));
+        return;
+      }
+      Session session = get.result();
+      session.setAccessed();
+      sessionStore.put(session, put -> {
+        if (put.failed()) {
+          done.completeExceptionally(put.cause());
+        } else {
+          done.complete(null);
+        }
+      });
+    });
+    return done.join();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.reactivex.Single;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.jwt.JWTOptions;
+import io.vertx.guides.wiki.http.AuthInitializerVerticle;
+import io.vertx.guides.wiki.auth.AuthService;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
+import io.vertx.guides.wiki.auth.EventBusAuthProvider;
+import io.vertx.guides.wiki.auth.JDBCAuthorities;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.auth.AuthProvider;
+import io.vertx.reactivex.ext.auth.jdbc.JDBCAuth;
+import io.vertx.reactivex.ext.auth.jwt.JWTAuth;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * Throughput of the {@code /api/token} JWT issuance: authentication followed by one {@code isAuthorized} query per
+ * claim ({@code perClaim}), against authentication and a single joined permissions query run concurrently
+ * ({@code joined}), and against the same calls made to the caching {@link AuthService} over the event bus
+ * ({@code service}).
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TokenIssuanceBenchmark {
+
+  @Param({"perClaim", "joined", "service"})
+  public String strategy;
+
+  private Vertx vertx;
+  private JDBCAuth auth;
+  private JDBCAuthorities authorities;
+  private AuthProvider serviceAuth;
+  private io.vertx.guides.wiki.auth.reactivex.AuthService authService;
+  private JWTAuth jwtAuth;
+  private JsonObject creds;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    JsonObject dbConf = new JsonObject()
+      .put(CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:tokens;shutdown=true")
+      .put(CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 16);
+    vertx.rxDeployVerticle(AuthInitializerVerticle.class.getName(), new DeploymentOptions().setConfig(dbConf))
+      .blockingGet();
+    vertx.rxDeployVerticle(AuthServiceVerticle.class.getName(), new DeploymentOptions().setConfig(dbConf))
+      .blockingGet();
+
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", dbConf.getString(CONFIG_WIKIDB_JDBC_URL))
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS)
+      .put("max_pool_size", dbConf.getInteger(CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE)));
+    auth = JDBCAuth.create(vertx, dbClient);
+    authorities = JDBCAuthorities.create(dbClient);
+    serviceAuth = AuthProvider.newInstance(EventBusAuthProvider.create(vertx.getDelegate(), "auth.queue"));
+    authService = AuthService.createProxy(vertx.getDelegate(), "auth.queue");
+    jwtAuth = JWTAuth.create(vertx, new JWTAuthOptions()
+      .addPubSecKey(new PubSecKeyOptions()
+        .setAlgorithm("HS256")
+        .setPublicKey("secret")
+        .setSymmetric(true)));
+    creds = new JsonObject().put("username", "foo").put("password", "bar");
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.rxClose().blockingAwait();
+  }
+
+  @Benchmark
+  public String issueToken() {
+    Single<JsonObject> claims;
+    if ("perClaim".equals(strategy)) {
+      claims = auth.rxAuthenticate(creds).flatMap(user -> Single.zip(
+        user.rxIsAuthorized("create"),
+        user.rxIsAuthorized("delete"),
+        user.rxIsAuthorized("update"),
+        (canCreate, canDelete, canUpdate) -> claims(canCreate, canDelete, canUpdate)));
+    } else if ("service".equals(strategy)) {
+      claims = Single.zip(serviceAuth.rxAuthenticate(creds), authService.rxAuthorities("foo"), (user, granted) ->
+        claims(granted.containsKey("create"), granted.containsKey("delete"), granted.containsKey("update")));
+    } else {
+      claims = Single.zip(auth.rxAuthenticate(creds), authorities.rxLoad("foo"), (user, granted) ->
+        claims(granted.containsKey("create"), granted.containsKey("delete"), granted.containsKey("update")));
+    }
+    return claims
+      .map(payload -> jwtAuth.generateToken(payload, new JWTOptions().setSubject("Wiki API").setIssuer("Vert.x")))
+      .blockingGet();
+  }
+
+  private static JsonObject claims(boolean canCreate, boolean canDelete, boolean canUpdate) {
+    return new JsonObject()
+      .put("username", "foo")
+      .put("canCreate", canCreate)
+      .put("canDelete", canDelete)
+      .put("canUpdate", canUpdate);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.benchmarks;
+
+import io.reactivex.Flowable;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.reactivex.SingleHelper;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.serviceproxy.ServiceBinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * Each {@link WikiDatabaseService} operation against HSQLDB in memory ({@code mem}) and on disk ({@code file}), for
+ * several page counts and content sizes.
+ * <p>
+ * The same service instance is called directly ({@code direct}) and through an event-bus proxy ({@code proxy}), so the
+ * difference between both is the cost of the proxy: message encoding, event-bus delivery and the hop to an event-loop.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class WikiDatabaseServiceBenchmark {
+
+  private static final String SERVICE_ADDRESS = "wikidb.benchmark";
+
+  @Param({"mem", "file"})
+  public String storage;
+
+  @Param({"direct", "proxy"})
+  public String access;
+
+  @Param({"100", "1000"})
+  public int pages;
+
+  @Param({"1024", "16384"})
+  public int contentSize;
+
+  private Vertx vertx;
+  private Path directory;
+  private String content;
+  private io.vertx.guides.wiki.database.reactivex.WikiDatabaseService service;
+
+  @Setup
+  public void setup() throws IOException {
+    vertx = Vertx.vertx();
+
+    String url;
+    if ("file".equals(storage)) {
+      directory = Files.createTempDirectory("wiki-benchmark");
+      url = "jdbc:hsqldb:file:" + directory.resolve("wiki") + ";shutdown=true";
+    } else {
+      url = "jdbc:hsqldb:mem:" + UUID.randomUUID() + ";shutdown=true";
+    }
+    io.vertx.ext.jdbc.JDBCClient dbClient = io.vertx.ext.jdbc.JDBCClient.createNonShared(vertx.getDelegate(), new JsonObject()
+      .put("url", url)
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS)
+      .put("max_pool_size", 8));
+
+    Properties queriesProps = new Properties();
+    try (InputStream in = WikiDatabaseVerticle.class.getResourceAsStream("/db-queries.properties")) {
+      queriesProps.load(in);
+    }
+    WikiDatabaseService impl = SingleHelper.<WikiDatabaseService>toSingle(handler ->
+      WikiDatabaseService.create(dbClient, WikiDatabaseVerticle.sqlQueries(queriesProps), handler))
+      .blockingGet();
+
+    if ("proxy".equals(access)) {
+      new ServiceBinder(vertx.getDelegate()).setAddress(SERVICE_ADDRESS).register(WikiDatabaseService.class, impl);
+      service = WikiDatabaseService.createProxy(vertx.getDelegate(), SERVICE_ADDRESS);
+    } else {
+      service = new io.vertx.guides.wiki.database.reactivex.WikiDatabaseService(impl);
+    }
+
+    content = content(contentSize);
+    Flowable.range(0, pages)
+      .concatMapCompletable(i -> service.rxCreatePage(pageName(i), content))
+      .blockingAwait();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    vertx.rxClose().blockingAwait();
+    if (directory != null) {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  @Benchmark
+  public JsonArray fetchAllPages() {
+    return service.rxFetchAllPages().blockingGet();
+  }
+
+  @Benchmark
+  public JsonObject fetchPage() {
+    return service.rxFetchPage(pageName(ThreadLocalRandom.current().nextInt(pages))).blockingGet();
+  }
+
+  @Benchmark
+  public JsonObject fetchPageById() {
+    return service.rxFetchPageById(ThreadLocalRandom.current().nextInt(pages)).blockingGet();
+  }
+
+  @Benchmark
+  public List<JsonObject> fetchAllPagesData() {
+    return service.rxFetchAllPagesData().blockingGet();
+  }
+
+  @Benchmark
+  public void savePage() {
+    service.rxSavePage(ThreadLocalRandom.current().nextInt(pages), content).blockingAwait();
+  }
+
+  /*
+   * Creating and deleting the page keeps the page count stable across iterations.
+   */
+  @Benchmark
+  public void createAndDeletePage() {
+    String name = "Benchmark " + UUID.randomUUID();
+    service.rxCreatePage(name, content)
+      .andThen(service.rxFetchPage(name))
+      .flatMapCompletable(page -> service.rxDeletePage(page.getInteger("id")))
+      .blockingAwait();
+  }
+
+  private static String pageName(int i) {
+    return "Page " + i;
+  }
+
+  private static String content(int size) {
+    StringBuilder builder = new StringBuilder(size);
+    int paragraph = 0;
+    while (builder.length() < size) {
+      builder.append("## Section ").append(paragraph++).append("\n\n")
+        .append("Lorem ipsum dolor sit amet, *consectetur* adipiscing elit, sed do eiusmod tempor incididunt.\n\n");
+    }
+    return builder.substring(0, size);
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.loadtest;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a wiki HTTP API with the operation mix and arrival rate of a {@link LoadProfile}.
+ * <p>
+ * The wiki is first seeded with pages, whose identifiers are the targets of the render and update operations. Delete
+ * operations only target pages created by the load test, which are discovered by listing the pages every second; a
+ * delete is skipped when no such page is known yet.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class LoadGenerator {
+
+  private static final long REQUEST_TIMEOUT = 10_000L;
+  private static final long DRAIN_TIMEOUT = 15_000L;
+  private static final String CREATED_PAGE_PREFIX = "Load test ";
+
+  private final Vertx vertx;
+  private final LoadProfile profile;
+  private final WebClient webClient;
+  private final String content;
+  private final String runId = UUID.randomUUID().toString();
+
+  private final Map<Operation, ConcurrentHistogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+  private final Map<Operation, AtomicLong> skipped = new EnumMap<>(Operation.class);
+
+  private final List<Integer> seedPages = new ArrayList<>();
+  private final Set<Integer> knownCreatedPages = ConcurrentHashMap.newKeySet();
+  private final ConcurrentLinkedQueue<Integer> deletablePages = new ConcurrentLinkedQueue<>();
+  private final AtomicLong createdPages = new AtomicLong();
+  private final AtomicLong inFlight = new AtomicLong();
+
+  private long start;
+  private long sent;
+
+  public LoadGenerator(Vertx vertx, LoadProfile profile) {
+    this.vertx = vertx;
+    this.profile = profile;
+    this.webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(profile.port())
+      .setMaxPoolSize(profile.connections())
+      .setKeepAlive(true));
+    this.content = content(profile.contentSize());
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(3));
+      errors.put(operation, new AtomicLong());
+      skipped.put(operation, new AtomicLong());
+    }
+  }
+
+  public void run(Handler<AsyncResult<LoadReport>> resultHandler) {
+    seed()
+      .compose(v -> measure())
+      .setHandler(ar -> {
+        webClient.close();
+        resultHandler.handle(ar);
+      });
+  }
+
+  private Future<Void> seed() {
+    Future<Void> seeding = Future.succeededFuture();
+    for (int i = 0; i < profile.seedPages(); i++) {
+      JsonObject page = new JsonObject()
+        .put("name", "Seed " + runId + " " + i)
+        .put("markdown", content);
+      seeding = seeding.compose(v -> send(webClient.post("/api/pages"), page, 201).mapEmpty());
+    }
+    return seeding
+      .compose(v -> send(webClient.get("/api/pages"), null, 200))
+      .map(response -> {
+        JsonArray pages = response.bodyAsJsonObject().getJsonArray("pages");
+        for (int i = 0; i < pages.size(); i++) {
+          JsonObject page = pages.getJsonObject(i);
+          if (page.getString("name").startsWith("Seed " + runId)) {
+            seedPages.add(page.getInteger("id"));
+          }
+        }
+        if (seedPages.isEmpty()) {
+          throw new IllegalStateException("No seed page could be created");
+        }
+        return null;
+      });
+  }
+
+  private Future<LoadReport> measure() {
+    Promise<LoadReport> promise = Promise.promise();
+    long warmupEnd = TimeUnit.SECONDS.toNanos(profile.warmup());
+    long end = warmupEnd + TimeUnit.SECONDS.toNanos(profile.duration());
+    double interval = TimeUnit.SECONDS.toNanos(1) / (double) profile.rate();
+
+    long discovery = vertx.setPeriodic(1000L, id -> discoverCreatedPages());
+    start = System.nanoTime();
+    vertx.setPeriodic(1L, id -> {
+      long elapsed = System.nanoTime() - start;
+      long due = (long) (Math.min(elapsed, end) / interval);
+      while (sent < due) {
+        long scheduled = (long) (sent * interval);
+        sent++;
+        fire(profile.pick(ThreadLocalRandom.current().nextDouble()), start + scheduled, scheduled >= warmupEnd);
+      }
+      if (elapsed >= end) {
+        vertx.cancelTimer(id);
+        vertx.cancelTimer(discovery);
+        drain(System.currentTimeMillis() + DRAIN_TIMEOUT, () -> promise.complete(report(profile.duration())));
+      }
+    });
+    return promise.future();
+  }
+
+  private void drain(long deadline, Runnable done) {
+    if (inFlight.get() == 0 || System.currentTimeMillis() > deadline) {
+      done.run();
+    } else {
+      vertx.setTimer(100L, id -> drain(deadline, done));
+    }
+  }
+
+  private void fire(Operation operation, long scheduled, boolean recorded) {
+    Future<HttpResponse<Buffer>> response;
+    switch (operation) {
+      case READ:
+        response = send(webClient.get("/api/pages"), null, 200);
+        break;
+      case RENDER:
+        response = send(webClient.get("/api/pages/" + randomSeedPage()), null, 200);
+        break;
+      case CREATE:
+        response = send(webClient.post("/api/pages"), new JsonObject()
+          .put("name", CREATED_PAGE_PREFIX + runId + " " + createdPages.incrementAndGet())
+          .put("markdown", content), 201);
+        break;
+      case UPDATE:
+        response = send(webClient.put("/api/pages/" + randomSeedPage()), new JsonObject()
+          .put("client", runId)
+          .put("markdown", content), 200);
+        break;
+      case DELETE:
+        Integer id = deletablePages.poll();
+        if (id == null) {
+          if (recorded) {
+            skipped.get(operation).incrementAndGet();
+          }
+          return;
+        }
+        response = send(webClient.delete("/api/pages/" + id), null, 200);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+    inFlight.incrementAndGet();
+    response.setHandler(ar -> {
+      inFlight.decrementAndGet();
+      if (!recorded) {
+        return;
+      }
+      if (ar.succeeded()) {
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+      } else {
+        errors.get(operation).incrementAndGet();
+      }
+    });
+  }
+
+  private Future<HttpResponse<Buffer>> send(HttpRequest<Buffer> request, JsonObject body, int expectedStatus) {
+    Promise<HttpResponse<Buffer>> promise = Promise.promise();
+    request.timeout(REQUEST_TIMEOUT);
+    Handler<AsyncResult<HttpResponse<Buffer>>> handler = ar -> {
+      if (ar.failed()) {
+        promise.fail(ar.cause());
+      } else if (ar.result().statusCode() != expectedStatus) {
+        promise.fail("Unexpected status code " + ar.result().statusCode());
+      } else {
+        promise.complete(ar.result());
+      }
+    };
+    if (body != null) {
+      request.sendJsonObject(body, handler);
+    } else {
+      request.send(handler);
+    }
+    return promise.future();
+  }
+
+  private void discoverCreatedPages() {
+    send(webClient.get("/api/pages"), null, 200).setHandler(ar -> {
+      if (ar.failed()) {
+        return;
+      }
+      JsonArray pages = ar.result().bodyAsJsonObject().getJsonArray("pages");
+      for (int i = 0; i < pages.size(); i++) {
+        JsonObject page = pages.getJsonObject(i);
+        Integer id = page.getInteger("id");
+        if (page.getString("name").startsWith(CREATED_PAGE_PREFIX + runId) && knownCreatedPages.add(id)) {
+          deletablePages.add(id);
+        }
+      }
+    });
+  }
+
+  private int randomSeedPage() {
+    return seedPages.get(ThreadLocalRandom.current().nextInt(seedPages.size()));
+  }
+
+  private LoadReport report(double seconds) {
+    Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+    Map<Operation, Long> skipCounts = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, latencies.get(operation).copy());
+      errorCounts.put(operation, errors.get(operation).get());
+      skipCounts.put(operation, skipped.get(operation).get());
+    }
+    return new LoadReport(histograms, errorCounts, skipCounts, seconds);
+  }
+
+  private static String content(int size) {
+    StringBuilder builder = new StringBuilder(size);
+    int paragraph = 0;
+    while (builder.length() < size) {
+      builder.append("## Section ").append(paragraph++).append("\n\n")
+        .append("Lorem ipsum dolor sit amet, *consectetur* adipiscing elit, sed do eiusmod tempor incididunt.\n\n");
+    }
+    return builder.substring(0, size);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.loadtest;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The parameters of a load test, read from a JSON object (see {@code load-profile.json}).
+ * <p>
+ * Requests arrive at a fixed {@code rate} per second whatever the response times are (open model), and pick their
+ * operation at random according to the weights of the {@code mix}.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class LoadProfile {
+
+  private final JsonObject config;
+  private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+  private final int totalWeight;
+
+  public LoadProfile(JsonObject config) {
+    this.config = config;
+    JsonObject weights = config.getJsonObject("mix", new JsonObject()
+      .put("read", 40)
+      .put("render", 30)
+      .put("create", 10)
+      .put("update", 15)
+      .put("delete", 5));
+    int total = 0;
+    for (Operation operation : Operation.values()) {
+      int weight = weights.getInteger(operation.key(), 0);
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight for " + operation.key());
+      }
+      mix.put(operation, weight);
+      total = total + weight;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("The operation mix is empty");
+    }
+    totalWeight = total;
+  }
+
+  public int port() {
+    return config.getInteger("port", 8090);
+  }
+
+  /**
+   * @return the arrival rate, in requests per second
+   */
+  public int rate() {
+    return config.getInteger("rate", 200);
+  }
+
+  /**
+   * @return the warmup duration in seconds, during which latencies are not recorded
+   */
+  public int warmup() {
+    return config.getInteger("warmup", 10);
+  }
+
+  /**
+   * @return the measurement duration in seconds
+   */
+  public int duration() {
+    return config.getInteger("duration", 30);
+  }
+
+  public int connections() {
+    return config.getInteger("connections", 32);
+  }
+
+  public int seedPages() {
+    return config.getInteger("seed.pages", 100);
+  }
+
+  public int contentSize() {
+    return config.getInteger("content.size", 2048);
+  }
+
+  public String report() {
+    return config.getString("report");
+  }
+
+  /**
+   * @return the maximum overall p99 latency in milliseconds, or {@code null} when there is no threshold
+   */
+  public Long p99Threshold() {
+    String property = System.getProperty("loadtest.p99.max.ms");
+    if (property != null && !property.isEmpty()) {
+      return Long.valueOf(property);
+    }
+    return config.getLong("p99.max.ms");
+  }
+
+  /**
+   * @param random a random number in {@code [0, 1)}
+   * @return the operation of the mix matching the random number
+   */
+  Operation pick(double random) {
+    int point = (int) (random * totalWeight);
+    for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+      point = point - entry.getValue();
+      if (point < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("Random number out of range: " + random);
+  }
+}
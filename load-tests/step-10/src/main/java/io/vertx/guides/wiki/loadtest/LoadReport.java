@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.loadtest;
+
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a load test: latency histograms in microseconds, error and skip counts per operation, and the
+ * measurement duration.
+ * <p>
+ * Latencies are measured from the time each request was scheduled to be sent, not from the time it was actually sent,
+ * so that a stalled server shows up in the percentiles instead of silently reducing the load.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class LoadReport {
+
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+  private final Map<Operation, Histogram> latencies;
+  private final Map<Operation, Long> errors;
+  private final Map<Operation, Long> skipped;
+  private final double seconds;
+
+  LoadReport(Map<Operation, Histogram> latencies, Map<Operation, Long> errors, Map<Operation, Long> skipped, double seconds) {
+    this.latencies = latencies;
+    this.errors = errors;
+    this.skipped = skipped;
+    this.seconds = seconds;
+  }
+
+  /**
+   * @return the latencies of all the operations together
+   */
+  public Histogram overall() {
+    Histogram overall = new Histogram(3);
+    latencies.values().forEach(overall::add);
+    return overall;
+  }
+
+  public long totalErrors() {
+    return errors.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * @return the overall p99 latency in milliseconds
+   */
+  public double p99() {
+    return millis(overall().getValueAtPercentile(99.0));
+  }
+
+  public JsonObject toJson() {
+    JsonObject operations = new JsonObject();
+    latencies.forEach((operation, histogram) -> operations.put(operation.key(), stats(histogram)
+      .put("errors", errors.get(operation))
+      .put("skipped", skipped.get(operation))));
+    return new JsonObject()
+      .put("seconds", seconds)
+      .put("overall", stats(overall()).put("errors", totalErrors()))
+      .put("operations", operations);
+  }
+
+  public void print(PrintStream out) {
+    out.printf("%-8s %8s %10s %8s %9s %9s %9s %9s %9s %8s%n", "", "count", "req/s", "mean",
+      PERCENTILE_NAMES[0], PERCENTILE_NAMES[1], PERCENTILE_NAMES[2], PERCENTILE_NAMES[3], "max", "errors");
+    latencies.forEach((operation, histogram) -> print(out, operation.key(), histogram, errors.get(operation)));
+    print(out, "overall", overall(), totalErrors());
+    out.printf("Latencies in ms over %.1f seconds%n", seconds);
+  }
+
+  private void print(PrintStream out, String name, Histogram histogram, long errorCount) {
+    out.printf("%-8s %8d %10.1f %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f %8d%n",
+      name,
+      histogram.getTotalCount(),
+      histogram.getTotalCount() / seconds,
+      histogram.getMean() / 1000.0,
+      millis(histogram.getValueAtPercentile(PERCENTILES[0])),
+      millis(histogram.getValueAtPercentile(PERCENTILES[1])),
+      millis(histogram.getValueAtPercentile(PERCENTILES[2])),
+      millis(histogram.getValueAtPercentile(PERCENTILES[3])),
+      millis(histogram.getMaxValue()),
+      errorCount);
+  }
+
+  private JsonObject stats(Histogram histogram) {
+    JsonObject percentiles = new JsonObject();
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      percentiles.put(PERCENTILE_NAMES[i], millis(histogram.getValueAtPercentile(PERCENTILES[i])));
+    }
+    return new JsonObject()
+      .put("count", histogram.getTotalCount())
+      .put("throughput", histogram.getTotalCount() / seconds)
+      .put("mean", histogram.getMean() / 1000.0)
+      .put("max", millis(histogram.getMaxValue()))
+      .put("percentiles", percentiles);
+  }
+
+  private static double millis(long micros) {
+    return micros / (double) TimeUnit.MILLISECONDS.toMicros(1);
+  }
+}
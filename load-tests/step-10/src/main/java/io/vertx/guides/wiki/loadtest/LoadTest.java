@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.loadtest;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.MainVerticle;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.http.HttpServerVerticle;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Deploys {@link MainVerticle} locally on an in-memory database, runs a load test against it and reports the latency
+ * percentiles and throughput of each operation.
+ * <p>
+ * The only argument is the path to a JSON load profile (see {@link LoadProfile}). When a p99 threshold is set, the load
+ * test fails if the overall p99 latency exceeds it or if a request fails.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class LoadTest {
+
+  public static void main(String[] args) throws Exception {
+    JsonObject config = new JsonObject();
+    if (args.length > 0) {
+      config = new JsonObject(new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8));
+    }
+    LoadProfile profile = new LoadProfile(config);
+
+    Vertx vertx = Vertx.vertx();
+    LoadReport report;
+    try {
+      report = run(vertx, profile);
+    } finally {
+      CompletableFuture<Void> closed = new CompletableFuture<>();
+      vertx.close(ar -> closed.complete(null));
+      closed.get();
+    }
+
+    report.print(System.out);
+    if (profile.report() != null) {
+      Path reportFile = Paths.get(profile.report());
+      if (reportFile.getParent() != null) {
+        Files.createDirectories(reportFile.getParent());
+      }
+      Files.write(reportFile, report.toJson().encodePrettily().getBytes(StandardCharsets.UTF_8));
+    }
+
+    Long threshold = profile.p99Threshold();
+    if (threshold != null) {
+      if (report.totalErrors() > 0) {
+        throw new IllegalStateException(report.totalErrors() + " requests failed");
+      }
+      if (report.p99() > threshold) {
+        throw new IllegalStateException(String.format("The p99 latency is %.2f ms, above the %d ms threshold", report.p99(), threshold));
+      }
+    }
+  }
+
+  private static LoadReport run(Vertx vertx, LoadProfile profile) throws InterruptedException, ExecutionException {
+    JsonObject wikiConfig = new JsonObject()
+      .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, profile.port())
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:loadtest;shutdown=true");
+
+    Promise<LoadReport> promise = Promise.promise();
+    vertx.deployVerticle(new MainVerticle(), new DeploymentOptions().setConfig(wikiConfig), deployment -> {
+      if (deployment.succeeded()) {
+        new LoadGenerator(vertx, profile).run(promise);
+      } else {
+        promise.fail(deployment.cause());
+      }
+    });
+
+    CompletableFuture<LoadReport> result = new CompletableFuture<>();
+    promise.future().setHandler(ar -> {
+      if (ar.succeeded()) {
+        result.complete(ar.result());
+      } else {
+        result.completeExceptionally(ar.cause());
+      }
+    });
+    return result.get();
+  }
+}
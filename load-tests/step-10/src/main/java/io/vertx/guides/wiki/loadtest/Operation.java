@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.loadtest;
+
+/**
+ * The operations of a load test mix, each mapped to a wiki API request.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public enum Operation {
+
+  /**
+   * {@code GET /api/pages}
+   */
+  READ,
+
+  /**
+   * {@code GET /api/pages/:id}, which renders the Markdown of the page
+   */
+  RENDER,
+
+  /**
+   * {@code POST /api/pages}
+   */
+  CREATE,
+
+  /**
+   * {@code PUT /api/pages/:id}
+   */
+  UPDATE,
+
+  /**
+   * {@code DELETE /api/pages/:id}, on a page created by the load test
+   */
+  DELETE;
+
+  String key() {
+    return name().toLowerCase();
+  }
+}
@@ -1,6 +1,6 @@
 @echo off
 
-SET LAUNCHER="io.vertx.core.Launcher"
+SET LAUNCHER="io.vertx.guides.wiki.WikiLauncher"
 SET VERTICLE="io.vertx.guides.wiki.MainVerticle"
 SET CMD="mvn compile"
 SET VERTX_CMD="run"
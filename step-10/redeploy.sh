@@ -1,6 +1,6 @@
 #!/usr/bin/env bash
 
-export LAUNCHER="io.vertx.core.Launcher"
+export LAUNCHER="io.vertx.guides.wiki.WikiLauncher"
 export VERTICLE="io.vertx.guides.wiki.MainVerticle"
 export CMD="mvn compile"
 export VERTX_CMD="run"
@@ -30,9 +30,10 @@ public class MainVerticle extends AbstractVerticle {
   @Override
   public void start(Promise<Void> promise) throws Exception {
 
-    Single<String> dbVerticleDeployment = vertx.rxDeployVerticle("io.vertx.guides.wiki.database.WikiDatabaseVerticle");
+    Single<String> dbVerticleDeployment = vertx.rxDeployVerticle("io.vertx.guides.wiki.database.WikiDatabaseVerticle",
+      new DeploymentOptions().setConfig(config()));
 
-    DeploymentOptions opts = new DeploymentOptions().setInstances(2);
+    DeploymentOptions opts = new DeploymentOptions().setInstances(2).setConfig(config());
     dbVerticleDeployment
       .flatMap(id -> vertx.rxDeployVerticle("io.vertx.guides.wiki.http.HttpServerVerticle", opts))
       .subscribe(id -> promise.complete(), promise::fail);
@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki;
+
+import io.vertx.core.Launcher;
+import io.vertx.core.VertxOptions;
+import io.vertx.micrometer.Label;
+import io.vertx.micrometer.Match;
+import io.vertx.micrometer.MatchType;
+import io.vertx.micrometer.MetricsDomain;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.VertxPrometheusOptions;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A launcher that enables Micrometer metrics with a Prometheus backend, scraped from {@code /metrics} by
+ * {@link io.vertx.guides.wiki.http.HttpServerVerticle}.
+ * <p>
+ * Labels with unbounded values are collapsed: page identifiers in HTTP paths and in the {@code page.saved.<id>}
+ * event-bus addresses, static assets, SockJS sessions and reply addresses. Any other HTTP path than the routes of the
+ * server is labelled {@code other}, so that scans and mistyped URLs do not create new series.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class WikiLauncher extends Launcher {
+
+  private static final List<String> HTTP_ROUTES = Arrays.asList(
+    "/", "/api/events", "/api/markdown/cache", "/api/pages", "/api/pages/:id", "/app/*", "/eventbus/*", "/metrics",
+    "/diagnostics/handlers");
+
+  public static void main(String[] args) {
+    new WikiLauncher().dispatch(args);
+  }
+
+  @Override
+  public void beforeStartingVertx(VertxOptions options) {
+    options.setMetricsOptions(metricsOptions());
+  }
+
+  static MicrometerMetricsOptions metricsOptions() {
+    return new MicrometerMetricsOptions()
+      .setEnabled(true)
+      .setPrometheusOptions(new VertxPrometheusOptions()
+        .setEnabled(true)
+        .setPublishQuantiles(true))
+      .setLabels(EnumSet.of(
+        Label.HTTP_METHOD, Label.HTTP_PATH, Label.HTTP_CODE,
+        Label.EB_ADDRESS, Label.EB_SIDE, Label.EB_FAILURE,
+        Label.POOL_TYPE, Label.POOL_NAME))
+      .addLabelMatch(alias(MetricsDomain.HTTP_SERVER, Label.HTTP_PATH, "/api/pages/[^/]+", "/api/pages/:id"))
+      .addLabelMatch(alias(MetricsDomain.HTTP_SERVER, Label.HTTP_PATH, "/app/.*", "/app/*"))
+      .addLabelMatch(alias(MetricsDomain.HTTP_SERVER, Label.HTTP_PATH, "/eventbus/.*", "/eventbus/*"))
+      // Matches are applied in order, so this one sees the aliases above
+      .addLabelMatch(alias(MetricsDomain.HTTP_SERVER, Label.HTTP_PATH, "(?!(" + HTTP_ROUTES.stream()
+        .map(Pattern::quote)
+        .collect(Collectors.joining("|")) + ")$).*", "other"))
+      .addLabelMatch(alias(MetricsDomain.EVENT_BUS, Label.EB_ADDRESS, "page\\.saved\\..*", "page.saved"))
+      .addLabelMatch(alias(MetricsDomain.EVENT_BUS, Label.EB_ADDRESS, "__vertx\\.reply\\..*", "__vertx.reply"));
+  }
+
+  private static Match alias(MetricsDomain domain, Label label, String regex, String alias) {
+    return new Match()
+      .setDomain(domain)
+      .setLabel(label.toString())
+      .setType(MatchType.REGEX)
+      .setValue(regex)
+      .setAlias(alias);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.function.Function;
+
+/**
+ * Service proxy interceptor that drops calls whose {@link WikiDatabaseVerticle#DEADLINE_HEADER} deadline has already
+ * passed, and hands the deadline of accepted calls over to {@link WikiDatabaseServiceImpl}.
+ * <p>
+ * The service method is dispatched synchronously right after the interceptor succeeds, on the same context, so the
+ * deadline is passed through the context data and must be taken at the start of the service method. A deadline that
+ * was not taken, because the call failed before reaching its method, is removed once that event-loop task is over so
+ * that it cannot leak into a later call.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class DeadlineInterceptor implements Function<Message<JsonObject>, Future<Message<JsonObject>>> {
+
+  static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  private static final String CONTEXT_KEY = "wikidb.deadline";
+
+  @Override
+  public Future<Message<JsonObject>> apply(Message<JsonObject> message) {
+    Context context = Vertx.currentContext();
+    context.remove(CONTEXT_KEY);
+    String header = message.headers().get(WikiDatabaseVerticle.DEADLINE_HEADER);
+    if (header == null) {
+      return Future.succeededFuture(message);
+    }
+    long deadline;
+    try {
+      deadline = Long.parseLong(header);
+    } catch (NumberFormatException e) {
+      return Future.failedFuture(new ServiceException(ErrorCodes.BAD_ACTION.ordinal(), "Invalid deadline: " + header));
+    }
+    if (deadline <= System.currentTimeMillis()) {
+      return Future.failedFuture(deadlineExceeded());
+    }
+    context.put(CONTEXT_KEY, deadline);
+    context.runOnContext(v -> context.remove(CONTEXT_KEY));
+    return Future.succeededFuture(message);
+  }
+
+  static ServiceException deadlineExceeded() {
+    return new ServiceException(ErrorCodes.DEADLINE_EXCEEDED.ordinal(), "Deadline exceeded");
+  }
+
+  /**
+   * @return the deadline of the call being dispatched, or {@link #NO_DEADLINE}
+   */
+  static long takeDeadline() {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      return NO_DEADLINE;
+    }
+    Long deadline = context.get(CONTEXT_KEY);
+    if (deadline == null) {
+      return NO_DEADLINE;
+    }
+    context.remove(CONTEXT_KEY);
+    return deadline;
+  }
+}
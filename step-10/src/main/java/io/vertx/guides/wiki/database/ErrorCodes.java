@@ -23,5 +23,6 @@ package io.vertx.guides.wiki.database;
 public enum ErrorCodes {
   NO_ACTION_SPECIFIED,
   BAD_ACTION,
-  DB_ERROR
+  DB_ERROR,
+  DEADLINE_EXCEEDED
 }
@@ -24,6 +24,7 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.jdbc.JDBCClient;
@@ -48,6 +49,11 @@ public interface WikiDatabaseService {
     return new io.vertx.guides.wiki.database.reactivex.WikiDatabaseService(new WikiDatabaseServiceVertxEBProxy(vertx, address));
   }
 
+  @GenIgnore
+  static io.vertx.guides.wiki.database.reactivex.WikiDatabaseService createProxy(Vertx vertx, String address, DeliveryOptions options) {
+    return new io.vertx.guides.wiki.database.reactivex.WikiDatabaseService(new WikiDatabaseServiceVertxEBProxy(vertx, address, options));
+  }
+
   @Fluent
   WikiDatabaseService fetchAllPages(Handler<AsyncResult<JsonArray>> resultHandler);
 
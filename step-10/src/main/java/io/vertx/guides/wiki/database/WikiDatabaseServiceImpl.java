@@ -24,13 +24,16 @@ import io.vertx.core.Handler;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLOptions;
 import io.vertx.reactivex.CompletableHelper;
 import io.vertx.reactivex.SingleHelper;
 import io.vertx.reactivex.ext.jdbc.JDBCClient;
 import io.vertx.reactivex.ext.sql.SQLClientHelper;
+import io.vertx.reactivex.ext.sql.SQLConnection;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
@@ -52,7 +55,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService fetchAllPages(Handler<AsyncResult<JsonArray>> resultHandler) {
-    dbClient.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES))
+    withConnection(conn -> conn.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES)))
       .flatMapPublisher(res -> {
         List<JsonArray> results = res.getResults();
         return Flowable.fromIterable(results);
@@ -66,7 +69,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService fetchPage(String name, Handler<AsyncResult<JsonObject>> resultHandler) {
-    dbClient.rxQueryWithParams(sqlQueries.get(SqlQuery.GET_PAGE), new JsonArray().add(name))
+    withConnection(conn -> conn.rxQueryWithParams(sqlQueries.get(SqlQuery.GET_PAGE), new JsonArray().add(name)))
       .map(result -> {
         if (result.getNumRows() > 0) {
           JsonArray row = result.getResults().get(0);
@@ -84,8 +87,8 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService fetchPageById(int id, Handler<AsyncResult<JsonObject>> resultHandler) {
-    Single<ResultSet> resultSet = dbClient.rxQueryWithParams(
-      sqlQueries.get(SqlQuery.GET_PAGE_BY_ID), new JsonArray().add(id));
+    Single<ResultSet> resultSet = withConnection(conn -> conn.rxQueryWithParams(
+      sqlQueries.get(SqlQuery.GET_PAGE_BY_ID), new JsonArray().add(id)));
     resultSet
       .map(result -> {
         if (result.getNumRows() > 0) {
@@ -105,7 +108,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler) {
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), new JsonArray().add(title).add(markdown))
+    withConnection(conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), new JsonArray().add(title).add(markdown)))
       .ignoreElement()
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
@@ -113,7 +116,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService savePage(int id, String markdown, Handler<AsyncResult<Void>> resultHandler) {
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), new JsonArray().add(markdown).add(id))
+    withConnection(conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), new JsonArray().add(markdown).add(id)))
       .ignoreElement()
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
@@ -122,7 +125,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
   @Override
   public WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler) {
     JsonArray data = new JsonArray().add(id);
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data)
+    withConnection(conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data))
       .ignoreElement()
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
@@ -130,9 +133,28 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService fetchAllPagesData(Handler<AsyncResult<List<JsonObject>>> resultHandler) {
-    dbClient.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES_DATA))
+    withConnection(conn -> conn.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES_DATA)))
       .map(ResultSet::getRows)
       .subscribe(SingleHelper.toObserver(resultHandler));
     return this;
   }
+
+  /*
+   * Must be called synchronously from the service method so that the deadline of the current call is picked up.
+   * Calls that waited for a pooled connection past their deadline are dropped, the others get a query timeout.
+   */
+  private <T> Single<T> withConnection(Function<SQLConnection, Single<T>> function) {
+    long deadline = DeadlineInterceptor.takeDeadline();
+    return SQLClientHelper.usingConnectionSingle(dbClient, conn -> {
+      if (deadline == DeadlineInterceptor.NO_DEADLINE) {
+        return function.apply(conn);
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return Single.error(DeadlineInterceptor.deadlineExceeded());
+      }
+      conn.setOptions(new SQLOptions().setQueryTimeout((int) ((remaining + 999) / 1000)));
+      return function.apply(conn);
+    });
+  }
 }
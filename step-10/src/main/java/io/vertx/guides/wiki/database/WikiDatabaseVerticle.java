@@ -40,6 +40,11 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
   public static final String CONFIG_WIKIDB_SQL_QUERIES_RESOURCE_FILE = "wikidb.sqlqueries.resource.file";
   public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
 
+  /**
+   * Optional delivery header holding the absolute deadline of a call, in milliseconds since the epoch.
+   */
+  public static final String DEADLINE_HEADER = "wiki.deadline";
+
   @Override
   public void start(Promise<Void> promise) throws Exception {
 
@@ -53,7 +58,10 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     WikiDatabaseService.create(dbClient, sqlQueries, ready -> {
       if (ready.succeeded()) {
         ServiceBinder binder = new ServiceBinder(vertx);
-        binder.setAddress(CONFIG_WIKIDB_QUEUE).register(WikiDatabaseService.class, ready.result());
+        binder
+          .setAddress(CONFIG_WIKIDB_QUEUE)
+          .addInterceptor(new DeadlineInterceptor())
+          .register(WikiDatabaseService.class, ready.result());
         promise.complete();
       } else {
         promise.fail(ready.cause());
@@ -78,6 +86,10 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     queriesProps.load(queriesInputStream);
     queriesInputStream.close();
 
+    return sqlQueries(queriesProps);
+  }
+
+  static HashMap<SqlQuery, String> sqlQueries(Properties queriesProps) {
     HashMap<SqlQuery, String> sqlQueries = new HashMap<>();
     sqlQueries.put(SqlQuery.CREATE_PAGES_TABLE, queriesProps.getProperty("create-pages-table"));
     sqlQueries.put(SqlQuery.ALL_PAGES, queriesProps.getProperty("all-pages"));
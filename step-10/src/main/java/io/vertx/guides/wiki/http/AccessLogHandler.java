@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Structured access log with per-route sampling.
+ * <p>
+ * Lines go to the {@code io.vertx.guides.wiki.access} logger, which {@code logback.xml} routes through an asynchronous
+ * appender so that no I/O happens on the event loop. Nothing is allocated for a request when the logger is disabled or
+ * when the request is not sampled.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class AccessLogHandler implements Handler<RoutingContext> {
+
+  private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("io.vertx.guides.wiki.access");
+
+  private final String[] prefixes;
+  private final double[] rates;
+  private final double defaultRate;
+
+  /**
+   * Creates a handler from a configuration like {@code {"default": 1.0, "routes": {"/app/": 0.1}}}, where each route
+   * entry is a path prefix mapped to the fraction of matching requests to log. The longest matching prefix wins.
+   */
+  static AccessLogHandler create(JsonObject config) {
+    return new AccessLogHandler(config.getDouble("default", 1.0), config.getJsonObject("routes", new JsonObject()));
+  }
+
+  private AccessLogHandler(double defaultRate, JsonObject routes) {
+    this.defaultRate = defaultRate;
+    this.prefixes = routes.fieldNames().stream()
+      .sorted((a, b) -> b.length() - a.length())
+      .toArray(String[]::new);
+    this.rates = new double[prefixes.length];
+    for (int i = 0; i < prefixes.length; i++) {
+      rates[i] = routes.getDouble(prefixes[i]);
+    }
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    if (!ACCESS_LOGGER.isInfoEnabled()) {
+      context.next();
+      return;
+    }
+    double rate = sampleRate(context.normalisedPath());
+    if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+      context.next();
+      return;
+    }
+    long start = System.nanoTime();
+    context.addBodyEndHandler(v -> log(context, start, rate));
+    context.next();
+  }
+
+  private double sampleRate(String path) {
+    for (int i = 0; i < prefixes.length; i++) {
+      if (path.startsWith(prefixes[i])) {
+        return rates[i];
+      }
+    }
+    return defaultRate;
+  }
+
+  private void log(RoutingContext context, long start, double rate) {
+    ACCESS_LOGGER.info("method={} path={} status={} bytes={} duration_us={} remote={} sample_rate={}",
+      context.request().rawMethod(),
+      context.normalisedPath(),
+      context.response().getStatusCode(),
+      context.response().bytesWritten(),
+      (System.nanoTime() - start) / 1000,
+      context.request().remoteAddress(),
+      rate);
+  }
+}
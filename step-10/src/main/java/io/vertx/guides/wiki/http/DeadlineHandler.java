@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+/**
+ * Assigns a deadline to the requests of a route, so that downstream event-bus calls can be bounded by it.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class DeadlineHandler implements Handler<RoutingContext> {
+
+  private static final String DEADLINE_KEY = "deadline";
+
+  private final long timeout;
+
+  static DeadlineHandler create(long timeout) {
+    return new DeadlineHandler(timeout);
+  }
+
+  private DeadlineHandler(long timeout) {
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    context.put(DEADLINE_KEY, System.currentTimeMillis() + timeout);
+    context.next();
+  }
+
+  /**
+   * @return delivery options whose send timeout and deadline header match the deadline of the request, if any
+   */
+  static DeliveryOptions deliveryOptions(RoutingContext context) {
+    DeliveryOptions options = new DeliveryOptions();
+    Long deadline = context.get(DEADLINE_KEY);
+    if (deadline != null) {
+      options
+        .setSendTimeout(Math.max(1L, deadline - System.currentTimeMillis()))
+        .addHeader(WikiDatabaseVerticle.DEADLINE_HEADER, String.valueOf(deadline));
+    }
+    return options;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes event-loop time to named handlers, so that a blocked event loop can be traced back to a route or an
+ * event-bus consumer.
+ * <p>
+ * Wrapped handlers record the time spent in their synchronous invocation, excluding the time of profiled handlers they
+ * call themselves (such as the next route handler). Callbacks scheduled by a handler, like the continuation of a
+ * database call, are not attributed to it. A watchdog thread samples the stack trace of invocations that run for longer
+ * than the threshold, while they are still running.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class HandlerProfiler implements Shareable {
+
+  private static final String SHARED_MAP = "wiki.profiler";
+  private static final String SHARED_KEY = "profiler";
+  private static final int MAX_SAMPLES = 5;
+  private static final int MAX_FRAMES = 32;
+
+  private final long thresholdNanos;
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private final Map<Thread, Invocation> running = new ConcurrentHashMap<>();
+
+  private Timer watchdog;
+  private int users;
+
+  /**
+   * @return the profiler shared by all verticles of this Vert.x instance, created with {@code thresholdMs} on first use
+   */
+  public static HandlerProfiler shared(Vertx vertx, long thresholdMs) {
+    LocalMap<String, HandlerProfiler> map = vertx.sharedData().getLocalMap(SHARED_MAP);
+    HandlerProfiler profiler = new HandlerProfiler(thresholdMs);
+    HandlerProfiler existing = map.putIfAbsent(SHARED_KEY, profiler);
+    return existing != null ? existing : profiler;
+  }
+
+  public HandlerProfiler(long thresholdMs) {
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+  }
+
+  /**
+   * Starts the watchdog on first use. Each call must be matched by a call to {@link #release()}.
+   */
+  public synchronized void acquire() {
+    if (users++ == 0) {
+      long period = Math.max(10L, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 2);
+      watchdog = new Timer("wiki-handler-profiler", true);
+      watchdog.scheduleAtFixedRate(new TimerTask() {
+        @Override
+        public void run() {
+          sampleSlowInvocations();
+        }
+      }, period, period);
+    }
+  }
+
+  /**
+   * Stops the watchdog when the last user releases the profiler.
+   */
+  public synchronized void release() {
+    if (users > 0 && --users == 0) {
+      watchdog.cancel();
+      watchdog = null;
+    }
+  }
+
+  public <T> Handler<T> profile(String name, Handler<T> handler) {
+    Stats handlerStats = stats.computeIfAbsent(name, Stats::new);
+    return event -> {
+      Thread thread = Thread.currentThread();
+      Invocation caller = running.get(thread);
+      Invocation invocation = new Invocation(handlerStats, System.nanoTime());
+      running.put(thread, invocation);
+      try {
+        handler.handle(event);
+      } finally {
+        long elapsed = System.nanoTime() - invocation.start;
+        if (caller != null) {
+          caller.nestedNanos += elapsed;
+          running.put(thread, caller);
+        } else {
+          running.remove(thread);
+        }
+        handlerStats.record(elapsed - invocation.nestedNanos, thresholdNanos);
+      }
+    };
+  }
+
+  /**
+   * @param top  the number of handlers to report
+   * @param sort {@code total} or {@code max}, the event-loop time to sort handlers by
+   * @return the handlers that spent the most time on event loops
+   */
+  public JsonArray top(int top, String sort) {
+    Comparator<Stats> comparator = "max".equals(sort) ?
+      Comparator.comparingLong(s -> s.maxNanos.get()) :
+      Comparator.comparingLong(s -> s.totalNanos.sum());
+    return new JsonArray(stats.values().stream()
+      .sorted(comparator.reversed())
+      .limit(top)
+      .map(Stats::toJson)
+      .collect(Collectors.toList()));
+  }
+
+  private void sampleSlowInvocations() {
+    long now = System.nanoTime();
+    running.forEach((thread, invocation) -> {
+      long elapsed = now - invocation.start;
+      if (elapsed > thresholdNanos && !invocation.sampled) {
+        invocation.sampled = true;
+        invocation.stats.sample(thread, thread.getStackTrace(), elapsed);
+      }
+    });
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private static class Invocation {
+
+    final Stats stats;
+    final long start;
+    long nestedNanos;
+    volatile boolean sampled;
+
+    Invocation(Stats stats, long start) {
+      this.stats = stats;
+      this.start = start;
+    }
+  }
+
+  private static class Stats {
+
+    final String name;
+    final LongAdder count = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+    final LongAdder slow = new LongAdder();
+    final Deque<JsonObject> samples = new ArrayDeque<>();
+
+    Stats(String name) {
+      this.name = name;
+    }
+
+    void record(long nanos, long thresholdNanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+      if (nanos > thresholdNanos) {
+        slow.increment();
+      }
+    }
+
+    void sample(Thread thread, StackTraceElement[] stackTrace, long elapsedNanos) {
+      JsonArray frames = new JsonArray();
+      for (int i = 0; i < Math.min(stackTrace.length, MAX_FRAMES); i++) {
+        frames.add(stackTrace[i].toString());
+      }
+      JsonObject sample = new JsonObject()
+        .put("timestamp", System.currentTimeMillis())
+        .put("thread", thread.getName())
+        .put("elapsedMs", millis(elapsedNanos))
+        .put("stackTrace", frames);
+      synchronized (samples) {
+        if (samples.size() == MAX_SAMPLES) {
+          samples.removeFirst();
+        }
+        samples.addLast(sample);
+      }
+    }
+
+    JsonObject toJson() {
+      long invocations = count.sum();
+      long total = totalNanos.sum();
+      JsonArray recentSamples;
+      synchronized (samples) {
+        recentSamples = new JsonArray(samples.stream().map(JsonObject::copy).collect(Collectors.toList()));
+      }
+      return new JsonObject()
+        .put("handler", name)
+        .put("invocations", invocations)
+        .put("totalMs", millis(total))
+        .put("meanUs", invocations > 0 ? TimeUnit.NANOSECONDS.toMicros(total / invocations) : 0L)
+        .put("maxMs", millis(maxNanos.get()))
+        .put("overThreshold", slow.sum())
+        .put("samples", recentSamples);
+    }
+  }
+}
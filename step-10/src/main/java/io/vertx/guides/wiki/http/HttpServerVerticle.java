@@ -17,27 +17,37 @@
 
 package io.vertx.guides.wiki.http;
 
-import com.github.rjeschke.txtmark.Processor;
 import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.bridge.PermittedOptions;
 import io.vertx.ext.web.handler.sockjs.BridgeOptions;
+import io.vertx.guides.wiki.database.ErrorCodes;
 import io.vertx.guides.wiki.database.reactivex.WikiDatabaseService;
+import io.vertx.guides.wiki.markdown.IncrementalMarkdownRenderer;
+import io.vertx.guides.wiki.markdown.MarkdownCache;
+import io.vertx.guides.wiki.markdown.MarkdownRenderService;
+import io.vertx.guides.wiki.markdown.MarkdownRenderer;
+import io.vertx.micrometer.PrometheusScrapingHandler;
+import io.vertx.reactivex.SingleHelper;
 import io.vertx.reactivex.core.AbstractVerticle;
 import io.vertx.reactivex.core.http.HttpServer;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.RoutingContext;
 import io.vertx.reactivex.ext.web.handler.BodyHandler;
-import io.vertx.reactivex.ext.web.handler.SessionHandler;
 import io.vertx.reactivex.ext.web.handler.StaticHandler;
 import io.vertx.reactivex.ext.web.handler.sockjs.SockJSHandler;
-import io.vertx.reactivex.ext.web.sstore.LocalSessionStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
@@ -46,50 +56,112 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   public static final String CONFIG_HTTP_SERVER_PORT = "http.server.port";
   public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
+  public static final String CONFIG_HTTP_ACCESS_LOG = "http.access-log";
+  public static final String CONFIG_HTTP_API_DEADLINE = "http.api.deadline.ms";
+  public static final String CONFIG_HTTP_SSE_HEARTBEAT = "http.sse.heartbeat.ms";
+  public static final String CONFIG_MARKDOWN_RENDERER = "markdown.renderer";
+  public static final String CONFIG_MARKDOWN_CACHE_MAX_BYTES = "markdown.cache.max-bytes";
+  public static final String CONFIG_MARKDOWN_INCREMENTAL_MAX_CLIENTS = "markdown.incremental.max-clients";
+  public static final String CONFIG_DIAGNOSTICS_PROFILER_THRESHOLD = "diagnostics.profiler.threshold.ms";
+  public static final String CONFIG_DIAGNOSTICS_ENABLED = "diagnostics.enabled";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HttpServerVerticle.class);
 
-  private WikiDatabaseService dbService;
+  private String wikiDbQueue;
+
+  private MarkdownCache markdownCache;
+
+  private MarkdownRenderService markdownRenderer;
+
+  private HandlerProfiler profiler;
 
   @Override
   public void start(Promise<Void> promise) throws Exception {
 
-    String wikiDbQueue = config().getString(CONFIG_WIKIDB_QUEUE, "wikidb.queue");
-    dbService = io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx.getDelegate(), wikiDbQueue);
+    wikiDbQueue = config().getString(CONFIG_WIKIDB_QUEUE, "wikidb.queue");
+    markdownCache = MarkdownCache.shared(vertx.getDelegate(), config().getLong(CONFIG_MARKDOWN_CACHE_MAX_BYTES, 32L * 1024 * 1024));
+    MarkdownRenderer renderer = MarkdownRenderer.named(config().getString(CONFIG_MARKDOWN_RENDERER, MarkdownRenderer.DEFAULT_RENDERER));
+    markdownRenderer = MarkdownRenderService.create(vertx.getDelegate(), markdownCache, renderer, config());
+    profiler = HandlerProfiler.shared(vertx.getDelegate(), config().getLong(CONFIG_DIAGNOSTICS_PROFILER_THRESHOLD, 50L));
+    profiler.acquire();
 
     HttpServer server = vertx.createHttpServer();
 
     Router router = Router.router(vertx);
 
-    router.route().handler(BodyHandler.create());
-    router.route().handler(SessionHandler.create(LocalSessionStore.create(vertx)));
+    router.route().handler(profiler.profile("access log", AccessLogHandler.create(config().getJsonObject(CONFIG_HTTP_ACCESS_LOG, new JsonObject()
+      .put("routes", new JsonObject()
+        .put("/app/", 0.1)
+        .put("/eventbus/", 0.01))))));
+
+    // Registered ahead of the body handler: event streams have no body
+    router.get("/api/events").handler(profiler.profile("GET /api/events", PageEventStream.create(vertx, "page.saved.",
+      config().getLong(CONFIG_HTTP_SSE_HEARTBEAT, 30000L))));
+
+    router.route().handler(profiler.profile("body", BodyHandler.create()));
 
     // tag::sockjs-handler-setup[]
     SockJSHandler sockJSHandler = SockJSHandler.create(vertx); // <1>
     BridgeOptions bridgeOptions = new BridgeOptions()
       .addInboundPermitted(new PermittedOptions().setAddress("app.markdown"))  // <2>
-      .addOutboundPermitted(new PermittedOptions().setAddress("page.saved")); // <3>
+      .addInboundPermitted(new PermittedOptions().setAddress("app.markdown.incremental"))
+      .addOutboundPermitted(new PermittedOptions().setAddressRegex("page\\.saved\\.[0-9]+")); // <3>
     sockJSHandler.bridge(bridgeOptions); // <4>
     router.route("/eventbus/*").handler(sockJSHandler); // <5>
     // end::sockjs-handler-setup[]
 
     // tag::eventbus-markdown-consumer[]
-    vertx.eventBus().<String>consumer("app.markdown", msg -> {
-      String html = Processor.process(msg.body());
-      msg.reply(html);
-    });
+    vertx.eventBus().<String>consumer("app.markdown", profiler.profile("app.markdown", msg -> {
+      markdownRenderer.render(msg.body(), ar -> {
+        if (ar.succeeded()) {
+          msg.reply(ar.result());
+        } else {
+          msg.fail(503, ar.cause().getMessage());
+        }
+      });
+    }));
     // end::eventbus-markdown-consumer[]
 
-    router.get("/app/*").handler(StaticHandler.create().setCachingEnabled(false));
+    IncrementalMarkdownRenderer incrementalRenderer = IncrementalMarkdownRenderer.shared(vertx.getDelegate(),
+      config().getInteger(CONFIG_MARKDOWN_INCREMENTAL_MAX_CLIENTS, 1000));
+    vertx.eventBus().<JsonObject>consumer("app.markdown.incremental", profiler.profile("app.markdown.incremental", msg -> {
+      String client = msg.body().getString("client");
+      if (client == null) {
+        msg.fail(400, "Missing client identifier");
+        return;
+      }
+      incrementalRenderer.update(client, msg.body(), markdownRenderer, ar -> {
+        if (ar.failed()) {
+          msg.fail(503, ar.cause().getMessage());
+        } else if (ar.result() != null) {
+          msg.reply(ar.result());
+        } else {
+          msg.fail(409, "Unknown revision, the full document must be sent");
+        }
+      });
+    }));
+
+    router.get("/app/*").handler(profiler.profile("GET /app/*", StaticHandler.create().setCachingEnabled(false)));
     router.get("/").handler(context -> context.reroute("/app/index.html"));
 
-    router.get("/api/pages").handler(this::apiRoot);
-    router.get("/api/pages/:id").handler(this::apiGetPage);
+    if (vertx.isMetricsEnabled()) {
+      Handler<io.vertx.ext.web.RoutingContext> scrapingHandler = PrometheusScrapingHandler.create();
+      router.get("/metrics").handler(context -> scrapingHandler.handle(context.getDelegate()));
+    }
+    // Stack samples reveal the internals of the server, so the report is only served when explicitly enabled
+    if (config().getBoolean(CONFIG_DIAGNOSTICS_ENABLED, false)) {
+      router.get("/diagnostics/handlers").handler(this::handlersReport);
+    }
+
+    router.route("/api/*").handler(profiler.profile("deadline", DeadlineHandler.create(config().getLong(CONFIG_HTTP_API_DEADLINE, 5000L))));
+    router.get("/api/markdown/cache").handler(context -> apiResponse(context, 200, "cache", markdownCache.stats()));
+    router.get("/api/pages").handler(profiler.profile("GET /api/pages", this::apiRoot));
+    router.get("/api/pages/:id").handler(profiler.profile("GET /api/pages/:id", this::apiGetPage));
     router.post().handler(BodyHandler.create());
-    router.post("/api/pages").handler(this::apiCreatePage);
+    router.post("/api/pages").handler(profiler.profile("POST /api/pages", this::apiCreatePage));
     router.put().handler(BodyHandler.create());
-    router.put("/api/pages/:id").handler(this::apiUpdatePage);
-    router.delete("/api/pages/:id").handler(this::apiDeletePage);
+    router.put("/api/pages/:id").handler(profiler.profile("PUT /api/pages/:id", this::apiUpdatePage));
+    router.delete("/api/pages/:id").handler(profiler.profile("DELETE /api/pages/:id", this::apiDeletePage));
 
     int portNumber = config().getInteger(CONFIG_HTTP_SERVER_PORT, 8080);
     server
@@ -104,9 +176,19 @@ public class HttpServerVerticle extends AbstractVerticle {
       });
   }
 
+  @Override
+  public void stop() throws Exception {
+    profiler.release();
+  }
+
+  private WikiDatabaseService dbService(RoutingContext context) {
+    return io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(
+      vertx.getDelegate(), wikiDbQueue, DeadlineHandler.deliveryOptions(context));
+  }
+
   private void apiDeletePage(RoutingContext context) {
     int id = Integer.valueOf(context.request().getParam("id"));
-    dbService.rxDeletePage(id).subscribe(
+    dbService(context).rxDeletePage(id).subscribe(
       () -> apiResponse(context, 200, null, null),
       t -> apiFailure(context, t));
   }
@@ -118,12 +200,12 @@ public class HttpServerVerticle extends AbstractVerticle {
       return;
     }
     // tag::publish-on-page-updated[]
-    dbService.rxSavePage(id, page.getString("markdown"))
+    dbService(context).rxSavePage(id, page.getString("markdown"))
       .doOnComplete(() -> { // <1>
         JsonObject event = new JsonObject()
           .put("id", id) // <2>
           .put("client", page.getString("client")); // <3>
-        vertx.eventBus().publish("page.saved", event); // <4>
+        vertx.eventBus().publish("page.saved." + id, event); // <4>
       })
       .subscribe(() -> apiResponse(context, 200, null, null), t -> apiFailure(context, t));
     // end::publish-on-page-updated[]
@@ -131,7 +213,9 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private boolean validateJsonPageDocument(RoutingContext context, JsonObject page, String... expectedKeys) {
     if (!Arrays.stream(expectedKeys).allMatch(page::containsKey)) {
-      LOGGER.error("Bad page creation JSON payload: " + page.encodePrettily() + " from " + context.request().remoteAddress());
+      if (LOGGER.isWarnEnabled()) {
+        LOGGER.warn("Bad page JSON payload: {} from {}", page.encode(), context.request().remoteAddress());
+      }
       context.response().setStatusCode(400);
       context.response().putHeader("Content-Type", "application/json");
       context.response().end(new JsonObject()
@@ -147,30 +231,38 @@ public class HttpServerVerticle extends AbstractVerticle {
     if (!validateJsonPageDocument(context, page, "name", "markdown")) {
       return;
     }
-    dbService.rxCreatePage(page.getString("name"), page.getString("markdown")).subscribe(
+    dbService(context).rxCreatePage(page.getString("name"), page.getString("markdown")).subscribe(
       () -> apiResponse(context, 201, null, null),
       t -> apiFailure(context, t));
   }
 
   private void apiGetPage(RoutingContext context) {
     int id = Integer.valueOf(context.request().getParam("id"));
-    dbService.rxFetchPageById(id)
-      .subscribe(dbObject -> {
-        if (dbObject.getBoolean("found")) {
-          JsonObject payload = new JsonObject()
+    dbService(context).rxFetchPageById(id)
+      .flatMapMaybe(dbObject -> {
+        if (!dbObject.getBoolean("found")) {
+          return Maybe.empty();
+        }
+        return renderMarkdown(dbObject.getString("content"))
+          .map(html -> new JsonObject()
             .put("name", dbObject.getString("name"))
             .put("id", dbObject.getInteger("id"))
             .put("markdown", dbObject.getString("content"))
-            .put("html", Processor.process(dbObject.getString("content")));
-          apiResponse(context, 200, "page", payload);
-        } else {
-          apiFailure(context, 404, "There is no page with ID " + id);
-        }
-      }, t -> apiFailure(context, t));
+            .put("html", html))
+          .toMaybe();
+      })
+      .subscribe(
+        payload -> apiResponse(context, 200, "page", payload),
+        t -> apiFailure(context, t),
+        () -> apiFailure(context, 404, "There is no page with ID " + id));
+  }
+
+  private Single<String> renderMarkdown(String markdown) {
+    return SingleHelper.toSingle(handler -> markdownRenderer.render(markdown, handler));
   }
 
   private void apiRoot(RoutingContext context) {
-    dbService.rxFetchAllPagesData()
+    dbService(context).rxFetchAllPagesData()
       .flatMapPublisher(Flowable::fromIterable)
       .map(obj -> new JsonObject()
         .put("id", obj.getInteger("ID"))
@@ -179,6 +271,26 @@ public class HttpServerVerticle extends AbstractVerticle {
       .subscribe(pages -> apiResponse(context, 200, "pages", pages), t -> apiFailure(context, t));
   }
 
+  private void handlersReport(RoutingContext context) {
+    String top = context.request().getParam("top");
+    String sort = context.request().getParam("sort");
+    int count;
+    try {
+      count = top != null ? Integer.parseInt(top) : 10;
+    } catch (NumberFormatException e) {
+      count = -1;
+    }
+    if (count < 0) {
+      apiFailure(context, 400, "Invalid top: " + top);
+      return;
+    }
+    if (sort != null && !"total".equals(sort) && !"max".equals(sort)) {
+      apiFailure(context, 400, "Invalid sort: " + sort);
+      return;
+    }
+    apiResponse(context, 200, "handlers", profiler.top(count, sort));
+  }
+
   private void apiResponse(RoutingContext context, int statusCode, String jsonField, Object jsonData) {
     context.response().setStatusCode(statusCode);
     context.response().putHeader("Content-Type", "application/json");
@@ -190,7 +302,17 @@ public class HttpServerVerticle extends AbstractVerticle {
   }
 
   private void apiFailure(RoutingContext context, Throwable t) {
-    apiFailure(context, 500, t.getMessage());
+    if (t instanceof ReplyException && isDeadlineExceeded((ReplyException) t)) {
+      apiFailure(context, 504, t.getMessage());
+    } else if (t instanceof RejectedExecutionException) {
+      apiFailure(context, 503, t.getMessage());
+    } else {
+      apiFailure(context, 500, t.getMessage());
+    }
+  }
+
+  private boolean isDeadlineExceeded(ReplyException e) {
+    return e.failureType() == ReplyFailure.TIMEOUT || e.failureCode() == ErrorCodes.DEADLINE_EXCEEDED.ordinal();
   }
 
   private void apiFailure(RoutingContext context, int statusCode, String error) {
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.eventbus.MessageConsumer;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-Sent Events stream of the {@code page.saved.<id>} event-bus addresses.
+ * <p>
+ * Clients pick a page with the {@code page} query parameter. The first subscriber of a page registers the event-bus
+ * consumer of its address, and the last one to leave unregisters it, so that pages nobody watches cost nothing.
+ * Each connection only costs its response in the subscribers set of its page. An event is encoded once into a
+ * {@link Buffer} that is then written to every subscriber. Subscribers whose write queue is full are disconnected rather
+ * than buffered, browsers reconnect on their own.
+ * <p>
+ * Instances are bound to the event loop of the verticle that creates them.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class PageEventStream implements Handler<RoutingContext> {
+
+  private static final String EVENT_NAME = "page.saved";
+  private static final Buffer PREAMBLE = Buffer.buffer("retry: 2000\n\n");
+  private static final Buffer HEARTBEAT = Buffer.buffer(":\n\n");
+
+  private final Map<String, Topic> topics = new HashMap<>();
+  private final Vertx vertx;
+  private final String addressPrefix;
+
+  static PageEventStream create(Vertx vertx, String addressPrefix, long heartbeatInterval) {
+    return new PageEventStream(vertx, addressPrefix, heartbeatInterval);
+  }
+
+  private PageEventStream(Vertx vertx, String addressPrefix, long heartbeatInterval) {
+    this.vertx = vertx;
+    this.addressPrefix = addressPrefix;
+    vertx.setPeriodic(heartbeatInterval, id -> {
+      for (Topic topic : new ArrayList<>(topics.values())) {
+        topic.broadcast(HEARTBEAT);
+      }
+    });
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    String page = context.request().getParam("page");
+    if (page == null || page.isEmpty() || !page.chars().allMatch(Character::isDigit)) {
+      context.fail(400);
+      return;
+    }
+    HttpServerResponse response = context.response();
+    response
+      .setChunked(true)
+      .putHeader("Content-Type", "text/event-stream")
+      .putHeader("Cache-Control", "no-cache")
+      .write(PREAMBLE);
+    Topic topic = topics.computeIfAbsent(page, Topic::new);
+    topic.subscribers.add(response);
+    response.closeHandler(v -> topic.unsubscribe(response));
+  }
+
+  private final class Topic {
+
+    final String page;
+    final Set<HttpServerResponse> subscribers = new HashSet<>();
+    final MessageConsumer<JsonObject> consumer;
+
+    Topic(String page) {
+      this.page = page;
+      this.consumer = vertx.eventBus().consumer(addressPrefix + page, msg -> broadcast(encode(msg.body())));
+    }
+
+    void unsubscribe(HttpServerResponse response) {
+      subscribers.remove(response);
+      if (subscribers.isEmpty() && topics.remove(page, this)) {
+        consumer.unregister();
+      }
+    }
+
+    Buffer encode(JsonObject event) {
+      return Buffer.buffer("event: " + EVENT_NAME + "\ndata: " + event.encode() + "\n\n");
+    }
+
+    void broadcast(Buffer frame) {
+      List<HttpServerResponse> slow = null;
+      for (HttpServerResponse response : subscribers) {
+        if (response.writeQueueFull()) {
+          if (slow == null) {
+            slow = new ArrayList<>();
+          }
+          slow.add(response);
+        } else {
+          response.write(frame);
+        }
+      }
+      if (slow != null) {
+        for (HttpServerResponse response : slow) {
+          unsubscribe(response);
+          response.close();
+        }
+      }
+    }
+  }
+}
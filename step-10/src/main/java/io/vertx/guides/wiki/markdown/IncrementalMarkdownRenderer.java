@@ -0,0 +1,173 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live-preview renderer that keeps, for each client, the document and its blocks, and answers edits with a patch of
+ * the blocks that changed.
+ * <p>
+ * A request either carries the full document ({@code {"client": ..., "markdown": ...}}), or an edit of the document
+ * the client last got a patch for ({@code {"client": ..., "base": rev, "edit": {"start": ..., "remove": ...,
+ * "insert": ...}}}). The reply is {@code {"rev": ..., "start": ..., "remove": ..., "blocks": [html, ...]}}: remove
+ * {@code remove} blocks at {@code start} and insert {@code blocks} there, a negative {@code remove} meaning all blocks.
+ * <p>
+ * Only the changed blocks are rendered, through a {@link MarkdownRenderService} so that they hit the cache and large
+ * patches are rendered off the event loop. A client whose patch could not be rendered has to send its full document
+ * again.
+ * <p>
+ * The per-client states are kept in a bounded LRU shared by all verticles of a Vert.x instance, since the event-bus
+ * bridge spreads the messages of a client over all consumers.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class IncrementalMarkdownRenderer implements Shareable {
+
+  private static final String SHARED_MAP = "wiki.markdown";
+  private static final String SHARED_KEY = "incremental";
+
+  private final LinkedHashMap<String, ClientDocument> documents;
+
+  /**
+   * @return the renderer shared by all verticles of this Vert.x instance, created with {@code maxClients} on first use
+   */
+  public static IncrementalMarkdownRenderer shared(Vertx vertx, int maxClients) {
+    LocalMap<String, IncrementalMarkdownRenderer> map = vertx.sharedData().getLocalMap(SHARED_MAP);
+    IncrementalMarkdownRenderer incrementalRenderer = new IncrementalMarkdownRenderer(maxClients);
+    IncrementalMarkdownRenderer existing = map.putIfAbsent(SHARED_KEY, incrementalRenderer);
+    return existing != null ? existing : incrementalRenderer;
+  }
+
+  public IncrementalMarkdownRenderer(int maxClients) {
+    this.documents = new LinkedHashMap<String, ClientDocument>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ClientDocument> eldest) {
+        return size() > maxClients;
+      }
+    };
+  }
+
+  /**
+   * Renders the patch for this request with {@code renderService}, or completes with {@code null} when the client has
+   * to send its full document again.
+   */
+  public void update(String client, JsonObject request, MarkdownRenderService renderService,
+                     Handler<AsyncResult<JsonObject>> resultHandler) {
+    Patch patch = patch(client, request);
+    if (patch == null) {
+      resultHandler.handle(Future.succeededFuture());
+      return;
+    }
+    renderService.renderBlocks(patch.sources, ar -> resultHandler.handle(ar.map(html -> new JsonObject()
+      .put("rev", patch.rev)
+      .put("start", patch.start)
+      .put("remove", patch.remove)
+      .put("blocks", new JsonArray(html)))));
+  }
+
+  private Patch patch(String client, JsonObject request) {
+    String markdown = request.getString("markdown");
+    if (markdown != null) {
+      ClientDocument document = new ClientDocument();
+      synchronized (documents) {
+        documents.put(client, document);
+      }
+      synchronized (document) {
+        return document.reset(markdown);
+      }
+    }
+    ClientDocument document;
+    synchronized (documents) {
+      document = documents.get(client);
+    }
+    if (document == null) {
+      return null;
+    }
+    synchronized (document) {
+      return document.edit(request.getInteger("base", -1), request.getJsonObject("edit", new JsonObject()));
+    }
+  }
+
+  private static final class ClientDocument {
+
+    int rev;
+    String text = "";
+    List<String> sources = new ArrayList<>();
+
+    Patch reset(String markdown) {
+      text = markdown;
+      sources = MarkdownBlocks.split(markdown);
+      return new Patch(++rev, 0, -1, sources);
+    }
+
+    Patch edit(int base, JsonObject edit) {
+      Integer start = edit.getInteger("start");
+      Integer remove = edit.getInteger("remove");
+      String insert = edit.getString("insert", "");
+      if (base != rev || start == null || remove == null
+        || start < 0 || remove < 0 || start + remove > text.length()) {
+        return null;
+      }
+      text = text.substring(0, start) + insert + text.substring(start + remove);
+      List<String> newSources = MarkdownBlocks.split(text);
+
+      int common = Math.min(sources.size(), newSources.size());
+      int prefix = 0;
+      while (prefix < common && sources.get(prefix).equals(newSources.get(prefix))) {
+        prefix++;
+      }
+      int suffix = 0;
+      while (suffix < common - prefix
+        && sources.get(sources.size() - 1 - suffix).equals(newSources.get(newSources.size() - 1 - suffix))) {
+        suffix++;
+      }
+
+      int removed = sources.size() - prefix - suffix;
+      sources = newSources;
+      return new Patch(++rev, prefix, removed, new ArrayList<>(newSources.subList(prefix, newSources.size() - suffix)));
+    }
+  }
+
+  private static final class Patch {
+
+    final int rev;
+    final int start;
+    final int remove;
+    final List<String> sources;
+
+    Patch(int rev, int start, int remove, List<String> sources) {
+      this.rev = rev;
+      this.start = start;
+      this.remove = remove;
+      this.sources = sources;
+    }
+  }
+}
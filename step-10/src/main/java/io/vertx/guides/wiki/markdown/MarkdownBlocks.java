@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits Markdown into blocks that render independently of each other.
+ * <p>
+ * Blocks are separated by blank lines, except inside fenced code and before indented lines (list continuations, code
+ * following a paragraph), which stay with the previous block. Items of a loose list stay in the block of the list too,
+ * so that the list is rendered once and ordered lists keep their numbering. Documents with reference-style link
+ * definitions are a single block, since a definition affects links anywhere in the document.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+final class MarkdownBlocks {
+
+  private static final Pattern LINK_DEFINITION = Pattern.compile("^ {0,3}\\[[^\\]]+\\]:\\s*\\S", Pattern.MULTILINE);
+  private static final Pattern LIST_ITEM = Pattern.compile("^ {0,3}([-*+]|\\d{1,9}[.)])(\\s|$)");
+
+  private MarkdownBlocks() {
+  }
+
+  static List<String> split(String markdown) {
+    if (LINK_DEFINITION.matcher(markdown).find()) {
+      return Collections.singletonList(markdown);
+    }
+    List<String> blocks = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    String fence = null;
+    boolean afterBlankLine = false;
+    boolean inList = false;
+    int start = 0;
+    while (start < markdown.length()) {
+      int end = markdown.indexOf('\n', start);
+      if (end < 0) {
+        end = markdown.length();
+      }
+      String line = markdown.substring(start, end);
+      start = end + 1;
+      String trimmed = line.trim();
+
+      if (fence != null) {
+        current.append(line).append('\n');
+        if (trimmed.startsWith(fence)) {
+          fence = null;
+        }
+        continue;
+      }
+      if (trimmed.isEmpty()) {
+        afterBlankLine = current.length() > 0;
+        continue;
+      }
+      boolean indented = line.startsWith(" ") || line.startsWith("\t");
+      boolean listItem = LIST_ITEM.matcher(line).find();
+      if (afterBlankLine) {
+        afterBlankLine = false;
+        if (indented || (inList && listItem)) {
+          current.append('\n');
+        } else {
+          blocks.add(current.toString());
+          current.setLength(0);
+          inList = false;
+        }
+      }
+      inList |= listItem;
+      if (trimmed.startsWith("```") || trimmed.startsWith("~~~")) {
+        fence = trimmed.substring(0, 3);
+      }
+      current.append(line).append('\n');
+    }
+    if (current.length() > 0) {
+      blocks.add(current.toString());
+    }
+    return blocks;
+  }
+}
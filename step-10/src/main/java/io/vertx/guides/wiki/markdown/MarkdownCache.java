@@ -0,0 +1,144 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * LRU cache of rendered Markdown, keyed by a 64-bit FNV-1a hash of the source, and bounded by the memory held by its
+ * entries.
+ * <p>
+ * Entries keep their source so that a hash collision is a miss, never a wrong page. An entry weighs two bytes per
+ * character of its source and HTML, and the least recently used entries are evicted until the cache is back under its
+ * byte budget. Documents larger than {@link #MAX_CACHEABLE_LENGTH} are rendered but not cached.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class MarkdownCache implements Shareable {
+
+  public static final int MAX_CACHEABLE_LENGTH = 256 * 1024;
+
+  private static final String SHARED_MAP = "wiki.markdown";
+  private static final String SHARED_KEY = "cache";
+
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final long maxBytes;
+  private long bytes;
+
+  /**
+   * @return the cache shared by all verticles of this Vert.x instance, created with {@code maxBytes} on first use
+   */
+  public static MarkdownCache shared(Vertx vertx, long maxBytes) {
+    LocalMap<String, MarkdownCache> map = vertx.sharedData().getLocalMap(SHARED_MAP);
+    MarkdownCache cache = new MarkdownCache(maxBytes);
+    MarkdownCache existing = map.putIfAbsent(SHARED_KEY, cache);
+    return existing != null ? existing : cache;
+  }
+
+  public MarkdownCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the cached rendering of {@code markdown}, calling {@code renderer} outside of any lock on a miss.
+   */
+  public String render(String markdown, Function<String, String> renderer) {
+    if (markdown.length() > MAX_CACHEABLE_LENGTH) {
+      misses.increment();
+      return renderer.apply(markdown);
+    }
+    long key = hash(markdown);
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry != null && entry.markdown.equals(markdown)) {
+      hits.increment();
+      return entry.html;
+    }
+    misses.increment();
+    String html = renderer.apply(markdown);
+    Entry rendered = new Entry(markdown, html);
+    if (rendered.weight <= maxBytes) {
+      synchronized (entries) {
+        Entry replaced = entries.put(key, rendered);
+        bytes += rendered.weight - (replaced != null ? replaced.weight : 0);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+          bytes -= eldest.next().weight;
+          eldest.remove();
+          evictions.increment();
+        }
+      }
+    }
+    return html;
+  }
+
+  public JsonObject stats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long total = hitCount + missCount;
+    int size;
+    long usedBytes;
+    synchronized (entries) {
+      size = entries.size();
+      usedBytes = bytes;
+    }
+    return new JsonObject()
+      .put("size", size)
+      .put("bytes", usedBytes)
+      .put("maxBytes", maxBytes)
+      .put("hits", hitCount)
+      .put("misses", missCount)
+      .put("evictions", evictions.sum())
+      .put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+  }
+
+  static long hash(String text) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < text.length(); i++) {
+      hash ^= text.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static final class Entry {
+
+    final String markdown;
+    final String html;
+    final long weight;
+
+    Entry(String markdown, String html) {
+      this.markdown = markdown;
+      this.html = html;
+      this.weight = 2L * (markdown.length() + html.length());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Renders Markdown through a {@link MarkdownCache}, inline for small documents and on the {@code markdown-render} worker
+ * pool for documents above the inline threshold, so that large pages do not block the event loop.
+ * <p>
+ * The number of offloaded renderings waiting or running is bounded per instance. Beyond it, renderings fail with a
+ * {@link RejectedExecutionException}. Instances are bound to the event loop of the verticle that creates them, the worker
+ * pool is shared by name between them.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class MarkdownRenderService {
+
+  public static final String CONFIG_MARKDOWN_RENDER_POOL_SIZE = "markdown.render.pool-size";
+  public static final String CONFIG_MARKDOWN_RENDER_MAX_QUEUE = "markdown.render.max-queue";
+  public static final String CONFIG_MARKDOWN_RENDER_INLINE_THRESHOLD = "markdown.render.inline-threshold";
+
+  private static final String WORKER_POOL_NAME = "markdown-render";
+
+  private final MarkdownCache cache;
+  private final MarkdownRenderer renderer;
+  private final WorkerExecutor executor;
+  private final int maxQueue;
+  private final int inlineThreshold;
+  private int queued;
+
+  public static MarkdownRenderService create(Vertx vertx, MarkdownCache cache, MarkdownRenderer renderer, JsonObject config) {
+    return new MarkdownRenderService(vertx, cache, renderer, config);
+  }
+
+  private MarkdownRenderService(Vertx vertx, MarkdownCache cache, MarkdownRenderer renderer, JsonObject config) {
+    this.cache = cache;
+    this.renderer = renderer;
+    this.executor = vertx.createSharedWorkerExecutor(WORKER_POOL_NAME, config.getInteger(CONFIG_MARKDOWN_RENDER_POOL_SIZE, 4));
+    this.maxQueue = config.getInteger(CONFIG_MARKDOWN_RENDER_MAX_QUEUE, 64);
+    this.inlineThreshold = config.getInteger(CONFIG_MARKDOWN_RENDER_INLINE_THRESHOLD, 16 * 1024);
+  }
+
+  public void render(String markdown, Handler<AsyncResult<String>> resultHandler) {
+    render(markdown.length(), () -> cache.render(markdown, renderer::render), resultHandler);
+  }
+
+  /**
+   * Renders independent blocks of a document, each through the cache. The blocks are rendered together, inline or on
+   * the worker pool depending on their total length.
+   */
+  public void renderBlocks(List<String> blocks, Handler<AsyncResult<List<String>>> resultHandler) {
+    int length = 0;
+    for (String block : blocks) {
+      length += block.length();
+    }
+    render(length, () -> {
+      List<String> html = new ArrayList<>(blocks.size());
+      for (String block : blocks) {
+        html.add(cache.render(block, renderer::render));
+      }
+      return html;
+    }, resultHandler);
+  }
+
+  private <T> void render(int length, Supplier<T> rendering, Handler<AsyncResult<T>> resultHandler) {
+    if (length <= inlineThreshold) {
+      resultHandler.handle(Future.succeededFuture(rendering.get()));
+      return;
+    }
+    if (queued >= maxQueue) {
+      resultHandler.handle(Future.failedFuture(new RejectedExecutionException("Markdown rendering queue is full")));
+      return;
+    }
+    queued++;
+    executor.<T>executeBlocking(promise -> promise.complete(rendering.get()), false, ar -> {
+      queued--;
+      resultHandler.handle(ar);
+    });
+  }
+}
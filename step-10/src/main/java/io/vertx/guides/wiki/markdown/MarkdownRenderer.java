@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import java.util.ServiceLoader;
+
+/**
+ * Markdown to HTML rendering engine.
+ * <p>
+ * Implementations are looked up with a {@link ServiceLoader}, and must be thread-safe since a renderer is shared by the
+ * event loops and the {@code markdown-render} worker pool.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public interface MarkdownRenderer {
+
+  String DEFAULT_RENDERER = "txtmark";
+
+  /**
+   * @return the name used to select this renderer
+   */
+  String name();
+
+  String render(String markdown);
+
+  /**
+   * @throws IllegalArgumentException if no renderer has this name
+   */
+  static MarkdownRenderer named(String name) {
+    for (MarkdownRenderer renderer : ServiceLoader.load(MarkdownRenderer.class)) {
+      if (renderer.name().equals(name)) {
+        return renderer;
+      }
+    }
+    throw new IllegalArgumentException("No Markdown renderer named " + name);
+  }
+}
@@ -62,6 +62,7 @@ angular.module("wikiApp", [])
     };
 
     $scope.updateRendering = function(html) {
+      renderedRev = null;
       document.getElementById("rendering").innerHTML = html;
     };
 
@@ -128,6 +129,92 @@ angular.module("wikiApp", [])
     $scope.reload();
     $scope.newPage();
 
+    // Incremental rendering: the server keeps our document split in blocks, and answers edits with block patches
+    var renderedText = null;
+    var renderedRev = null;
+    var renderingInFlight = false;
+    var pendingText = null;
+
+    var renderFully = function (text) {
+      // tag::eventbus-markdown-sender[]
+      eb.send("app.markdown", text, function (err, reply) { // <1>
+        if (err === null) {
+          $scope.$apply(function () { // <2>
+            $scope.updateRendering(reply.body); // <3>
+          });
+        } else {
+          console.warn("Error rendering Markdown content: " + JSON.stringify(err));
+        }
+      });
+      // end::eventbus-markdown-sender[]
+    };
+
+    var textEdit = function (before, after) {
+      var max = Math.min(before.length, after.length);
+      var start = 0;
+      while (start < max && before.charCodeAt(start) === after.charCodeAt(start)) {
+        start++;
+      }
+      var end = 0;
+      while (end < max - start
+        && before.charCodeAt(before.length - 1 - end) === after.charCodeAt(after.length - 1 - end)) {
+        end++;
+      }
+      return {
+        "start": start,
+        "remove": before.length - start - end,
+        "insert": after.substring(start, after.length - end)
+      };
+    };
+
+    var applyPatch = function (patch) {
+      var rendering = document.getElementById("rendering");
+      var anchor = null;
+      if (patch.remove < 0) {
+        rendering.innerHTML = "";
+      } else {
+        for (var i = 0; i < patch.remove; i++) {
+          rendering.removeChild(rendering.children[patch.start]);
+        }
+        anchor = rendering.children[patch.start] || null;
+      }
+      patch.blocks.forEach(function (html) {
+        var block = document.createElement("div");
+        block.innerHTML = html;
+        rendering.insertBefore(block, anchor);
+      });
+    };
+
+    var renderIncrementally = function (text) {
+      if (renderingInFlight) {
+        pendingText = text;
+        return;
+      }
+      var request = (renderedRev === null) ?
+        {"client": clientUuid, "markdown": text} :
+        {"client": clientUuid, "base": renderedRev, "edit": textEdit(renderedText, text)};
+      renderingInFlight = true;
+      eb.send("app.markdown.incremental", request, function (err, reply) {
+        renderingInFlight = false;
+        if (err === null) {
+          applyPatch(reply.body);
+          renderedText = text;
+          renderedRev = reply.body.rev;
+        } else if (err.failureCode === 409 && renderedRev !== null) {
+          renderedRev = null;
+          pendingText = (pendingText !== null) ? pendingText : text;
+        } else {
+          renderedRev = null;
+          renderFully(text);
+        }
+        if (pendingText !== null) {
+          var next = pendingText;
+          pendingText = null;
+          renderIncrementally(next);
+        }
+      });
+    };
+
     var markdownRenderingPromise = null;
     $scope.$watch("pageMarkdown", function (text) {
       if (eb.state !== EventBus.OPEN) return;
@@ -136,17 +223,7 @@ angular.module("wikiApp", [])
       }
       markdownRenderingPromise = $timeout(function() {
         markdownRenderingPromise = null;
-        // tag::eventbus-markdown-sender[]
-        eb.send("app.markdown", text, function (err, reply) { // <1>
-          if (err === null) {
-            $scope.$apply(function () { // <2>
-              $scope.updateRendering(reply.body); // <3>
-            });
-          } else {
-            console.warn("Error rendering Markdown content: " + JSON.stringify(err));
-          }
-        });
-        // end::eventbus-markdown-sender[]
+        renderIncrementally(text);
       }, 300);
     });
 
@@ -155,16 +232,28 @@ angular.module("wikiApp", [])
     // end::event-bus-js-setup[]
     // tag::register-page-saved-handler[]
     var clientUuid = generateUUID(); // <1>
+    var pageSavedAddress = null;
+    var pageSavedHandler = function (error, message) { // <2>
+      if (message.body // <3>
+        && clientUuid !== message.body.client) { // <4>
+        $scope.$apply(function () { // <5>
+          $scope.pageModified = true; // <6>
+        });
+      }
+    };
+    var watchPageSaved = function (id) {
+      if (pageSavedAddress !== null && eb.state === EventBus.OPEN) {
+        eb.unregisterHandler(pageSavedAddress, pageSavedHandler); // <7>
+      }
+      pageSavedAddress = null;
+      if (id !== undefined && eb.state === EventBus.OPEN) {
+        pageSavedAddress = "page.saved." + id;
+        eb.registerHandler(pageSavedAddress, pageSavedHandler); // <8>
+      }
+    };
+    $scope.$watch("pageId", watchPageSaved);
     eb.onopen = function () {
-      eb.registerHandler("page.saved", function (error, message) { // <2>
-        if (message.body // <3>
-          && $scope.pageId === message.body.id // <4>
-          && clientUuid !== message.body.client) { // <5>
-          $scope.$apply(function () { // <6>
-            $scope.pageModified = true; // <7>
-          });
-        }
-      });
+      watchPageSaved($scope.pageId);
     };
     // end::register-page-saved-handler[]
 
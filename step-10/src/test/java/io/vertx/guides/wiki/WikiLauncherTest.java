@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.micrometer.Label;
+import io.vertx.micrometer.MetricsDomain;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.backends.BackendRegistries;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class WikiLauncherTest {
+
+  @Test
+  public void http_path_labels_are_bounded() {
+    MicrometerMetricsOptions options = WikiLauncher.metricsOptions();
+    MeterRegistry registry = new SimpleMeterRegistry();
+    BackendRegistries.registerMatchers(registry, options.getLabels(), options.getLabelMatches());
+
+    assertEquals("/", path(registry, "/"));
+    assertEquals("/api/pages", path(registry, "/api/pages"));
+    assertEquals("/api/pages/:id", path(registry, "/api/pages/42"));
+    assertEquals("/app/*", path(registry, "/app/index.html"));
+    assertEquals("/eventbus/*", path(registry, "/eventbus/123/abc/websocket"));
+    assertEquals("/metrics", path(registry, "/metrics"));
+    assertEquals("other", path(registry, "/wp-login.php"));
+    assertEquals("other", path(registry, "/api/pages/42/history"));
+    assertEquals("other", path(registry, "/metrics2"));
+  }
+
+  private static String path(MeterRegistry registry, String path) {
+    String label = Label.HTTP_PATH.toString();
+    return registry.counter(MetricsDomain.HTTP_SERVER.getPrefix() + "requests", label, path).getId().getTag(label);
+  }
+}
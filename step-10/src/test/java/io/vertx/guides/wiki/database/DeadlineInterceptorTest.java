@@ -0,0 +1,176 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.SQLOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.guides.wiki.database.reactivex.WikiDatabaseService;
+import io.vertx.serviceproxy.ServiceBinder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class DeadlineInterceptorTest {
+
+  private static final String ADDRESS = "wikidb.deadline.test";
+
+  private final AtomicInteger connections = new AtomicInteger();
+  private final List<SQLOptions> options = new CopyOnWriteArrayList<>();
+  private Vertx vertx;
+
+  @Before
+  public void prepare(TestContext context) throws Exception {
+    vertx = Vertx.vertx();
+    JDBCClient dbClient = recording(JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", "jdbc:hsqldb:mem:deadline;shutdown=true")
+      .put("driver_class", "org.hsqldb.jdbcDriver")
+      .put("max_pool_size", 2)));
+
+    Properties queries = new Properties();
+    try (InputStream in = getClass().getResourceAsStream("/db-queries.properties")) {
+      queries.load(in);
+    }
+
+    io.vertx.guides.wiki.database.WikiDatabaseService.create(dbClient, WikiDatabaseVerticle.sqlQueries(queries),
+      context.asyncAssertSuccess(service -> {
+        new ServiceBinder(vertx)
+          .setAddress(ADDRESS)
+          .addInterceptor(new DeadlineInterceptor())
+          .register(io.vertx.guides.wiki.database.WikiDatabaseService.class, service);
+        connections.set(0);
+      }));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void expired_deadline_fails_fast(TestContext context) {
+    Async async = context.async();
+    service(System.currentTimeMillis() - 1)
+      .rxFetchAllPages()
+      .subscribe(pages -> context.fail("The call should have been rejected"), err -> {
+        context.assertTrue(err instanceof ReplyException);
+        context.assertEquals(ErrorCodes.DEADLINE_EXCEEDED.ordinal(), ((ReplyException) err).failureCode());
+        context.assertEquals(0, connections.get());
+        async.complete();
+      });
+  }
+
+  @Test
+  public void query_timeout_from_remaining_budget(TestContext context) {
+    Async async = context.async();
+    service(System.currentTimeMillis() + 4_500)
+      .rxFetchAllPages()
+      .flatMap(pages -> {
+        context.assertEquals(1, options.size());
+        context.assertEquals(5, options.get(0).getQueryTimeout());
+        return io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx, ADDRESS).rxFetchAllPages();
+      })
+      .subscribe(pages -> {
+        context.assertEquals(2, connections.get());
+        context.assertEquals(1, options.size());
+        async.complete();
+      }, context::fail);
+  }
+
+  @Test
+  public void undispatched_deadline_does_not_leak(TestContext context) {
+    Async async = context.async();
+    DeliveryOptions deliveryOptions = new DeliveryOptions()
+      .addHeader("action", "noSuchAction")
+      .addHeader(WikiDatabaseVerticle.DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + 100));
+    vertx.eventBus().request(ADDRESS, new JsonObject(), deliveryOptions, reply -> {
+      context.assertTrue(reply.failed());
+      vertx.setTimer(200, id -> io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx, ADDRESS)
+        .rxFetchAllPages()
+        .subscribe(pages -> {
+          context.assertTrue(options.isEmpty());
+          async.complete();
+        }, context::fail));
+    });
+  }
+
+  private WikiDatabaseService service(long deadline) {
+    DeliveryOptions deliveryOptions = new DeliveryOptions()
+      .addHeader(WikiDatabaseVerticle.DEADLINE_HEADER, String.valueOf(deadline));
+    return io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx, ADDRESS, deliveryOptions);
+  }
+
+  /*
+   * Counts the pooled connections handed out, and records the options set on them.
+   */
+  @SuppressWarnings("unchecked")
+  private JDBCClient recording(JDBCClient client) {
+    return (JDBCClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{JDBCClient.class}, (proxy, method, args) -> {
+      if (method.getName().equals("getConnection")) {
+        Handler<AsyncResult<SQLConnection>> handler = (Handler<AsyncResult<SQLConnection>>) args[0];
+        client.getConnection(ar -> handler.handle(ar.map(conn -> {
+          connections.incrementAndGet();
+          return recording(conn);
+        })));
+        return proxy;
+      }
+      return forward(client, proxy, method, args);
+    });
+  }
+
+  private SQLConnection recording(SQLConnection conn) {
+    return (SQLConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SQLConnection.class}, (proxy, method, args) -> {
+      if (method.getName().equals("setOptions")) {
+        options.add((SQLOptions) args[0]);
+      }
+      return forward(conn, proxy, method, args);
+    });
+  }
+
+  private static Object forward(Object target, Object proxy, Method method, Object[] args) throws Throwable {
+    try {
+      Object result = method.invoke(target, args);
+      return result == target ? proxy : result;
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.http;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.http.HttpClient;
+import io.vertx.reactivex.ext.web.Router;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class AccessLogHandlerTest {
+
+  private static final Logger ACCESS_LOGGER = (Logger) LoggerFactory.getLogger("io.vertx.guides.wiki.access");
+
+  private Vertx vertx;
+  private HttpClient client;
+  private ListAppender<ILoggingEvent> appender;
+  private Level level;
+
+  @Before
+  public void prepare(TestContext context) {
+    int port = FreePort.find();
+    vertx = Vertx.vertx();
+    Router router = Router.router(vertx);
+    router.route().handler(AccessLogHandler.create(new JsonObject()
+      .put("default", 1.0)
+      .put("routes", new JsonObject()
+        .put("/app/", 0.0)
+        .put("/app/pages/", 1.0)
+        .put("/static/", 0.0))));
+    router.route().handler(rc -> rc.response().end("ok"));
+    vertx.createHttpServer()
+      .requestHandler(router)
+      .listen(port, context.asyncAssertSuccess());
+    client = vertx.createHttpClient(new HttpClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(port));
+
+    appender = new ListAppender<>();
+    appender.start();
+    ACCESS_LOGGER.addAppender(appender);
+    level = ACCESS_LOGGER.getLevel();
+  }
+
+  @After
+  public void finish(TestContext context) {
+    ACCESS_LOGGER.detachAppender(appender);
+    ACCESS_LOGGER.setLevel(level);
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void samples_by_longest_prefix(TestContext context) {
+    Async async = context.async();
+    get(context, Arrays.asList("/", "/app/", "/app/index.html", "/app/pages/1", "/static/style.css", "/api/pages"), () -> {
+      context.assertEquals(Arrays.asList("/", "/app/pages/1", "/api/pages"), loggedPaths());
+      context.assertTrue(appender.list.get(1).getFormattedMessage().contains("status=200"));
+      context.assertTrue(appender.list.get(1).getFormattedMessage().contains("sample_rate=1.0"));
+      async.complete();
+    });
+  }
+
+  @Test
+  public void nothing_logged_when_disabled(TestContext context) {
+    Async async = context.async();
+    ACCESS_LOGGER.setLevel(Level.WARN);
+    get(context, Arrays.asList("/", "/app/pages/1"), () -> {
+      context.assertTrue(appender.list.isEmpty());
+      async.complete();
+    });
+  }
+
+  private List<String> loggedPaths() {
+    return appender.list.stream()
+      .map(event -> event.getArgumentArray()[1].toString())
+      .collect(Collectors.toList());
+  }
+
+  private void get(TestContext context, List<String> paths, Runnable done) {
+    get(context, paths.iterator(), done);
+  }
+
+  private void get(TestContext context, Iterator<String> paths, Runnable done) {
+    if (!paths.hasNext()) {
+      done.run();
+      return;
+    }
+    client.getNow(paths.next(), response -> {
+      context.assertEquals(200, response.statusCode());
+      response.bodyHandler(body -> get(context, paths, done));
+    });
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.codec.BodyCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class DiagnosticsTest {
+
+  private Vertx vertx;
+  private WebClient webClient;
+  private int port;
+
+  @Before
+  public void prepare() {
+    port = FreePort.find();
+    vertx = Vertx.vertx();
+    webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(port));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void disabled_by_default(TestContext context) {
+    Async async = context.async();
+    deploy(context, new JsonObject(), () ->
+      webClient.get("/diagnostics/handlers").send(context.asyncAssertSuccess(response -> {
+        context.assertNotEquals(200, response.statusCode());
+        async.complete();
+      })));
+  }
+
+  @Test
+  public void validate_parameters(TestContext context) {
+    Async async = context.async(4);
+    deploy(context, new JsonObject().put(HttpServerVerticle.CONFIG_DIAGNOSTICS_ENABLED, true), () -> {
+      for (String query : new String[]{"top=abc", "top=-1", "sort=min"}) {
+        webClient.get("/diagnostics/handlers?" + query).as(BodyCodec.jsonObject()).send(context.asyncAssertSuccess(response -> {
+          context.assertEquals(400, response.statusCode());
+          context.assertFalse(response.body().getBoolean("success"));
+          async.countDown();
+        }));
+      }
+      webClient.get("/diagnostics/handlers?top=1&sort=max").as(BodyCodec.jsonObject()).send(context.asyncAssertSuccess(response -> {
+        context.assertEquals(200, response.statusCode());
+        context.assertTrue(response.body().getJsonArray("handlers").size() <= 1);
+        async.countDown();
+      }));
+    });
+  }
+
+  private void deploy(TestContext context, JsonObject config, Runnable then) {
+    vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions()
+      .setConfig(config.put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, port)), context.asyncAssertSuccess(id -> then.run()));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class HandlerProfilerTest {
+
+  @Test
+  public void attributes_nested_time_and_samples_slow_handlers() {
+    HandlerProfiler profiler = new HandlerProfiler(20L);
+    profiler.acquire();
+    try {
+      Handler<String> slow = profiler.profile("slow", s -> sleep(100L));
+      Handler<String> fast = profiler.profile("fast", slow::handle);
+      fast.handle("event");
+      fast.handle("event");
+    } finally {
+      profiler.release();
+    }
+
+    JsonArray top = profiler.top(10, "total");
+    assertEquals(2, top.size());
+
+    JsonObject slow = top.getJsonObject(0);
+    assertEquals("slow", slow.getString("handler"));
+    assertEquals(2L, slow.getLong("invocations").longValue());
+    assertTrue(slow.getLong("maxMs") >= 100L);
+    assertEquals(2L, slow.getLong("overThreshold").longValue());
+    assertEquals(2, slow.getJsonArray("samples").size());
+    assertTrue(slow.getJsonArray("samples").getJsonObject(0).getJsonArray("stackTrace").encode().contains("sleep"));
+
+    JsonObject fast = top.getJsonObject(1);
+    assertEquals("fast", fast.getString("handler"));
+    assertTrue(fast.getLong("maxMs") < 20L);
+    assertEquals(0L, fast.getLong("overThreshold").longValue());
+  }
+
+  @Test
+  public void shared_between_verticles() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      assertSame(HandlerProfiler.shared(vertx, 10L), HandlerProfiler.shared(vertx, 20L));
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
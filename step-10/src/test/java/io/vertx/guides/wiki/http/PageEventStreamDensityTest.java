@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap that the server retains for each open {@code /api/events} stream. Being a measurement, it only runs
+ * with {@code mvn -Pdensity test}.
+ * <p>
+ * The streams are opened from plain blocking sockets. Their own heap cost is measured first, with sockets connected to a
+ * listener that never accepts them, and is subtracted from the result. The number of streams can be changed with
+ * {@code -Dsse.connections=N}, and the test fails when a stream retains more than {@code -Dsse.max-bytes-per-stream}.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PageEventStreamDensityTest {
+
+  private static final int CONNECTIONS = Integer.getInteger("sse.connections", 1000);
+  private static final long MAX_BYTES_PER_STREAM = Long.getLong("sse.max-bytes-per-stream", 32 * 1024);
+  private static final byte[] REQUEST = "GET /api/events?page=1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+    .getBytes(StandardCharsets.US_ASCII);
+
+  private Vertx vertx;
+  private int port;
+
+  @Before
+  public void prepare(TestContext context) {
+    port = FreePort.find();
+    vertx = Vertx.vertx();
+    vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions()
+      .setConfig(new JsonObject().put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, port)), context.asyncAssertSuccess());
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void retained_heap_per_stream(TestContext context) throws Exception {
+    long clientBytes;
+    try (ServerSocket listener = new ServerSocket(0, CONNECTIONS)) {
+      long before = usedHeap();
+      List<Socket> sockets = connect(listener.getLocalPort());
+      clientBytes = (usedHeap() - before) / CONNECTIONS;
+      close(sockets);
+    }
+
+    long before = usedHeap();
+    List<Socket> streams = connect(port);
+    for (Socket stream : streams) {
+      awaitPreamble(stream);
+    }
+    long streamBytes = (usedHeap() - before) / CONNECTIONS - clientBytes;
+    close(streams);
+
+    System.out.println(String.format("%d event streams: ~%d bytes of server heap per stream (~%d bytes of client socket excluded)",
+      CONNECTIONS, streamBytes, clientBytes));
+    context.assertTrue(streamBytes < MAX_BYTES_PER_STREAM,
+      "Each stream retains ~" + streamBytes + " bytes, over the budget of " + MAX_BYTES_PER_STREAM);
+  }
+
+  private List<Socket> connect(int port) throws IOException {
+    List<Socket> sockets = new ArrayList<>(CONNECTIONS);
+    for (int i = 0; i < CONNECTIONS; i++) {
+      Socket socket = new Socket("localhost", port);
+      socket.setSoTimeout(10_000);
+      socket.getOutputStream().write(REQUEST);
+      socket.getInputStream();
+      sockets.add(socket);
+    }
+    return sockets;
+  }
+
+  /*
+   * The retry preamble is the first write of a stream, once it is received the server holds the subscription.
+   */
+  private static void awaitPreamble(Socket socket) throws IOException {
+    InputStream in = socket.getInputStream();
+    StringBuilder received = new StringBuilder();
+    byte[] buffer = new byte[512];
+    while (received.indexOf("retry: ") < 0) {
+      int read = in.read(buffer);
+      if (read < 0) {
+        throw new IOException("Stream closed before its preamble: " + received);
+      }
+      received.append(new String(buffer, 0, read, StandardCharsets.US_ASCII));
+    }
+  }
+
+  private static void close(List<Socket> sockets) throws IOException {
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+}
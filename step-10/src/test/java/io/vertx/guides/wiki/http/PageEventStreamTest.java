@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks the {@code /api/events} fan-out, and that a page stops consuming its event-bus address once all of its
+ * streams are closed. The number of connections can be changed with {@code -Dsse.connections=N}.
+ * {@link PageEventStreamDensityTest} measures the heap retained by each stream.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PageEventStreamTest {
+
+  private static final int CONNECTIONS = Integer.getInteger("sse.connections", 200);
+
+  private Vertx vertx;
+  private HttpClient client;
+
+  @Before
+  public void prepare(TestContext context) {
+    int port = FreePort.find();
+    vertx = Vertx.vertx();
+    vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions()
+      .setConfig(new JsonObject().put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, port)), context.asyncAssertSuccess());
+    client = vertx.createHttpClient(new HttpClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(port)
+      .setMaxPoolSize(CONNECTIONS));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void reject_missing_page(TestContext context) {
+    Async async = context.async();
+    client.get("/api/events", response -> {
+      context.assertEquals(400, response.statusCode());
+      async.complete();
+    }).end();
+  }
+
+  @Test
+  public void fan_out_page_saved_events(TestContext context) {
+    Async connected = context.async(CONNECTIONS);
+    Async received = context.async(CONNECTIONS);
+    Async released = context.async();
+
+    for (int i = 0; i < CONNECTIONS; i++) {
+      client.get("/api/events?page=1", response -> {
+        context.assertEquals(200, response.statusCode());
+        context.assertEquals("text/event-stream", response.getHeader("Content-Type"));
+        response.exceptionHandler(err -> {
+          // The client closes the streams at the end of the test
+        });
+        response.handler(buffer -> {
+          String frames = buffer.toString();
+          context.assertFalse(frames.contains("\"id\":2"));
+          if (frames.contains("event: page.saved\ndata: {\"id\":1,\"client\":\"abc\"}")) {
+            received.countDown();
+          }
+        });
+        connected.countDown();
+      }).end();
+    }
+
+    connected.handler(ar -> {
+      vertx.eventBus().publish("page.saved.2", new JsonObject().put("id", 2).put("client", "abc"));
+      vertx.eventBus().publish("page.saved.1", new JsonObject().put("id", 1).put("client", "abc"));
+    });
+
+    received.handler(ar -> {
+      client.close();
+      awaitNoHandlers(context, "page.saved.1", released);
+    });
+
+    released.awaitSuccess(10000);
+  }
+
+  /*
+   * The server sees the connections close asynchronously, so probe until the address has no consumer left.
+   */
+  private void awaitNoHandlers(TestContext context, String address, Async async) {
+    vertx.eventBus().send(address, new JsonObject(), new DeliveryOptions().setSendTimeout(100), reply -> {
+      if (reply.succeeded()) {
+        context.fail("The page stream consumer should not reply");
+      } else if (((ReplyException) reply.cause()).failureType() == ReplyFailure.NO_HANDLERS) {
+        async.complete();
+      } else {
+        awaitNoHandlers(context, address, async);
+      }
+    });
+  }
+}
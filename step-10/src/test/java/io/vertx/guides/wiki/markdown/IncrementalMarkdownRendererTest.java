@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class IncrementalMarkdownRendererTest {
+
+  private Vertx vertx;
+  private MarkdownRenderService renderService;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+    renderService = MarkdownRenderService.create(vertx, new MarkdownCache(1024 * 1024), new TxtmarkRenderer(), new JsonObject());
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void split_blocks() {
+    assertEquals(Arrays.asList("# Title\n", "Some text\n", "```\ncode\n\nmore\n```\n", "- item\n\n    continued\n"),
+      MarkdownBlocks.split("# Title\n\nSome text\n\n```\ncode\n\nmore\n```\n\n- item\n\n    continued\n"));
+    assertEquals(1, MarkdownBlocks.split("A [link][1]\n\nText\n\n[1]: http://vertx.io\n").size());
+    assertEquals(Arrays.asList("- a\n\n- b\n", "Text\n", "1. one\n\n2. two\n"),
+      MarkdownBlocks.split("- a\n\n- b\n\nText\n\n1. one\n\n2. two\n"));
+  }
+
+  @Test
+  public void loose_lists_render_like_the_full_document() {
+    for (MarkdownRenderer markdownRenderer : new MarkdownRenderer[]{new TxtmarkRenderer(), new CommonmarkRenderer()}) {
+      MarkdownRenderService service = MarkdownRenderService.create(vertx, new MarkdownCache(1024 * 1024), markdownRenderer, new JsonObject());
+      for (String markdown : new String[]{
+        "# Title\n\n- a\n\n- b\n\n- c\n\nText\n",
+        "Intro\n\n1. one\n\n2. two\nlazy continuation\n\n3. three\n\n    indented\n\nOutro\n"}) {
+        JsonArray blocks = update(new IncrementalMarkdownRenderer(10), service, "c5", new JsonObject().put("markdown", markdown))
+          .getJsonArray("blocks");
+        assertEquals(markdownRenderer.name(), markdownRenderer.render(markdown), String.join("", blocks.<String>getList()));
+      }
+    }
+  }
+
+  @Test
+  public void patch_changed_blocks_only() {
+    IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer(10);
+
+    JsonObject full = update(renderer, "c1", new JsonObject().put("markdown", "# A\n\nB\n\nC\n"));
+    assertEquals(1, full.getInteger("rev").intValue());
+    assertEquals(-1, full.getInteger("remove").intValue());
+    assertEquals(3, full.getJsonArray("blocks").size());
+
+    JsonObject patch = update(renderer, "c1", new JsonObject()
+      .put("base", 1)
+      .put("edit", new JsonObject().put("start", 5).put("remove", 1).put("insert", "*B*")));
+    assertEquals(2, patch.getInteger("rev").intValue());
+    assertEquals(1, patch.getInteger("start").intValue());
+    assertEquals(1, patch.getInteger("remove").intValue());
+    assertEquals(new JsonArray().add("<p><em>B</em></p>\n"), patch.getJsonArray("blocks"));
+
+    JsonObject split = update(renderer, "c1", new JsonObject()
+      .put("base", 2)
+      .put("edit", new JsonObject().put("start", 8).put("remove", 0).put("insert", "\n\nD")));
+    assertEquals(2, split.getInteger("start").intValue());
+    assertEquals(0, split.getInteger("remove").intValue());
+    assertEquals(new JsonArray().add("<p>D</p>\n"), split.getJsonArray("blocks"));
+  }
+
+  @Test
+  public void resync_on_unknown_revision() {
+    IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer(10);
+    JsonObject edit = new JsonObject()
+      .put("base", 1)
+      .put("edit", new JsonObject().put("start", 0).put("remove", 0).put("insert", "x"));
+
+    assertNull(update(renderer, "c2", edit));
+    update(renderer, "c2", new JsonObject().put("markdown", "text"));
+    assertNotNull(update(renderer, "c2", edit));
+    assertNull(update(renderer, "c2", edit));
+  }
+
+  @Test
+  public void large_patches_render_on_workers_through_the_cache(TestContext context) {
+    Async async = context.async();
+    List<String> threads = new CopyOnWriteArrayList<>();
+    MarkdownCache cache = new MarkdownCache(1024 * 1024);
+    IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer(10);
+    String markdown = "# A\n\nSome text\n\nMore text\n";
+
+    vertx.runOnContext(v -> {
+      MarkdownRenderService offloading = MarkdownRenderService.create(vertx, cache, new MarkdownRenderer() {
+        @Override
+        public String name() {
+          return "recording";
+        }
+
+        @Override
+        public String render(String markdown) {
+          threads.add(Thread.currentThread().getName());
+          return new TxtmarkRenderer().render(markdown);
+        }
+      }, new JsonObject().put(MarkdownRenderService.CONFIG_MARKDOWN_RENDER_INLINE_THRESHOLD, 16));
+
+      renderer.update("c3", new JsonObject().put("markdown", markdown), offloading, context.asyncAssertSuccess(first -> {
+        context.assertEquals(3, first.getJsonArray("blocks").size());
+        context.assertEquals(3, threads.size());
+        context.assertTrue(threads.stream().allMatch(name -> name.startsWith("markdown-render")));
+        renderer.update("c4", new JsonObject().put("markdown", markdown), offloading, context.asyncAssertSuccess(second -> {
+          context.assertEquals(first.getJsonArray("blocks"), second.getJsonArray("blocks"));
+          context.assertEquals(3, threads.size());
+          context.assertEquals(3L, cache.stats().getLong("hits"));
+          async.complete();
+        }));
+      }));
+    });
+  }
+
+  /*
+   * Small documents are rendered inline, so the patch is ready when update returns.
+   */
+  private JsonObject update(IncrementalMarkdownRenderer renderer, String client, JsonObject request) {
+    return update(renderer, renderService, client, request);
+  }
+
+  private JsonObject update(IncrementalMarkdownRenderer renderer, MarkdownRenderService service, String client, JsonObject request) {
+    AtomicReference<AsyncResult<JsonObject>> result = new AtomicReference<>();
+    renderer.update(client, request, service, result::set);
+    assertTrue(result.get().succeeded());
+    return result.get().result();
+  }
+}
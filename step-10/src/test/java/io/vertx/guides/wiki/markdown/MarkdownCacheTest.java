@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class MarkdownCacheTest {
+
+  @Test
+  public void hits_misses_and_evictions() {
+    // Each entry weighs 2 * (1 + 4) bytes
+    MarkdownCache cache = new MarkdownCache(20);
+    AtomicInteger renders = new AtomicInteger();
+
+    assertEquals("<a1>", cache.render("a", md -> "<" + md + renders.incrementAndGet() + ">"));
+    assertEquals("<a1>", cache.render("a", md -> "<" + md + renders.incrementAndGet() + ">"));
+    cache.render("b", md -> "<" + md + renders.incrementAndGet() + ">");
+    cache.render("c", md -> "<" + md + renders.incrementAndGet() + ">");
+    cache.render("a", md -> "<" + md + renders.incrementAndGet() + ">");
+
+    assertEquals(4, renders.get());
+    JsonObject stats = cache.stats();
+    assertEquals(2, stats.getInteger("size").intValue());
+    assertEquals(20L, stats.getLong("bytes").longValue());
+    assertEquals(1L, stats.getLong("hits").longValue());
+    assertEquals(4L, stats.getLong("misses").longValue());
+    assertEquals(2L, stats.getLong("evictions").longValue());
+    assertEquals(0.2, stats.getDouble("hitRate"), 0.0001);
+  }
+
+  @Test
+  public void bounded_by_bytes() {
+    MarkdownCache cache = new MarkdownCache(100);
+    AtomicInteger renders = new AtomicInteger();
+
+    cache.render("a", md -> "<a>");
+    cache.render("b", md -> "<b>");
+    cache.render("c", md -> "<c>");
+    cache.render("long", md -> "<p>" + md + "</p>");
+    assertEquals(4, cache.stats().getInteger("size").intValue());
+
+    String page = "01234567890123456";
+    cache.render(page, md -> md);
+    JsonObject stats = cache.stats();
+    assertEquals(2, stats.getInteger("size").intValue());
+    assertEquals(3L, stats.getLong("evictions").longValue());
+    assertTrue(stats.getLong("bytes") <= 100L);
+
+    cache.render(page + page, md -> md + renders.incrementAndGet());
+    cache.render(page + page, md -> md + renders.incrementAndGet());
+    assertEquals(2, renders.get());
+    assertEquals(2, cache.stats().getInteger("size").intValue());
+  }
+
+  @Test
+  public void shared_between_verticles() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      assertSame(MarkdownCache.shared(vertx, 10), MarkdownCache.shared(vertx, 20));
+    } finally {
+      vertx.close();
+    }
+  }
+}
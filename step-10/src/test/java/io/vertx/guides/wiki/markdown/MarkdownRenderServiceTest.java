@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.markdown;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class MarkdownRenderServiceTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void inline_and_offloaded_rendering(TestContext context) {
+    Async async = context.async(2);
+    vertx.runOnContext(v -> {
+      MarkdownRenderService service = MarkdownRenderService.create(vertx, new MarkdownCache(1024), new TxtmarkRenderer(), new JsonObject()
+        .put(MarkdownRenderService.CONFIG_MARKDOWN_RENDER_INLINE_THRESHOLD, 16));
+
+      service.render("# Title", context.asyncAssertSuccess(html -> {
+        context.assertEquals("<h1>Title</h1>\n", html);
+        async.countDown();
+      }));
+
+      service.render("Some *long* enough text", context.asyncAssertSuccess(html -> {
+        context.assertTrue(Vertx.currentContext().isEventLoopContext());
+        context.assertEquals("<p>Some <em>long</em> enough text</p>\n", html);
+        async.countDown();
+      }));
+    });
+  }
+
+  @Test
+  public void bounded_queue(TestContext context) {
+    Async async = context.async();
+    vertx.runOnContext(v -> {
+      MarkdownRenderService service = MarkdownRenderService.create(vertx, new MarkdownCache(1024), new TxtmarkRenderer(), new JsonObject()
+        .put(MarkdownRenderService.CONFIG_MARKDOWN_RENDER_INLINE_THRESHOLD, 0)
+        .put(MarkdownRenderService.CONFIG_MARKDOWN_RENDER_MAX_QUEUE, 1));
+
+      service.render("first", context.asyncAssertSuccess());
+      service.render("second", context.asyncAssertFailure(t -> {
+        context.assertTrue(t instanceof RejectedExecutionException);
+        async.complete();
+      }));
+    });
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.vertx.guides.wiki.auth.reactivex;
+
+import java.util.Map;
+import io.reactivex.Observable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * Authentication and authorization of wiki users, backed by the <code>user</code>, <code>user_roles</code> and
+ * <code>roles_perms</code> tables.
+ * <p>
+ * Authorities are returned as the keys of a JSON object, <code>role:<role></code> for roles and <code><perm></code> for
+ * permissions.
+ *
+ * <p/>
+ * NOTE: This class has been automatically generated from the {@link io.vertx.guides.wiki.auth.AuthService original} non RX-ified interface using Vert.x codegen.
+ */
+
+@io.vertx.lang.rx.RxGen(io.vertx.guides.wiki.auth.AuthService.class)
+public class AuthService {
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    AuthService that = (AuthService) o;
+    return delegate.equals(that.delegate);
+  }
+  
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  public static final io.vertx.lang.rx.TypeArg<AuthService> __TYPE_ARG = new io.vertx.lang.rx.TypeArg<>(    obj -> new AuthService((io.vertx.guides.wiki.auth.AuthService) obj),
+    AuthService::getDelegate
+  );
+
+  private final io.vertx.guides.wiki.auth.AuthService delegate;
+  
+  public AuthService(io.vertx.guides.wiki.auth.AuthService delegate) {
+    this.delegate = delegate;
+  }
+
+  public io.vertx.guides.wiki.auth.AuthService getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Checks the password of a user, and replies with <code>{"username": ..., "authorities": {...</code>}}.
+   * @param username 
+   * @param password 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.auth.reactivex.AuthService authenticate(String username, String password, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.authenticate(username, password, resultHandler);
+    return this;
+  }
+
+  /**
+   * Checks the password of a user, and replies with <code>{"username": ..., "authorities": {...</code>}}.
+   * @param username 
+   * @param password 
+   * @return 
+   */
+  public Single<JsonObject> rxAuthenticate(String username, String password) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      authenticate(username, password, handler);
+    });
+  }
+
+  public io.vertx.guides.wiki.auth.reactivex.AuthService authorities(String username, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.authorities(username, resultHandler);
+    return this;
+  }
+
+  public Single<JsonObject> rxAuthorities(String username) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      authorities(username, handler);
+    });
+  }
+
+  /**
+   * Drops the cached credentials and authorities of a user, or of all users when <code>username</code> is <code>null</code>.
+   * @param username 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.auth.reactivex.AuthService invalidate(String username, Handler<AsyncResult<Void>> resultHandler) { 
+    delegate.invalidate(username, resultHandler);
+    return this;
+  }
+
+  /**
+   * Drops the cached credentials and authorities of a user, or of all users when <code>username</code> is <code>null</code>.
+   * @param username 
+   * @return 
+   */
+  public Completable rxInvalidate(String username) { 
+    return io.vertx.reactivex.impl.AsyncResultCompletable.toCompletable(handler -> {
+      invalidate(username, handler);
+    });
+  }
+
+
+  public static  AuthService newInstance(io.vertx.guides.wiki.auth.AuthService arg) {
+    return arg != null ? new AuthService(arg) : null;
+  }
+}
@@ -17,36 +17,109 @@
 
 package io.vertx.guides.wiki;
 
+import io.reactivex.Completable;
 import io.reactivex.Single;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.http.HttpServerVerticle;
+import io.vertx.guides.wiki.tracing.SpanExporter;
+import io.vertx.guides.wiki.tracing.Tracer;
 import io.vertx.reactivex.core.AbstractVerticle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
  */
 public class MainVerticle extends AbstractVerticle {
 
+  public static final String CONFIG_TRACING_FILE = "tracing.file";
+  public static final String CONFIG_TRACING_SAMPLE_RATE = "tracing.sample.rate";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MainVerticle.class);
+
+  private SpanExporter spanExporter = SpanExporter.NOOP;
+  private boolean stopped;
+
   @Override
   public void start(Promise<Void> promise) throws Exception {
 
-    // tag::rx-deploy-verticle[]
-    Single<String> dbVerticleDeployment = vertx.rxDeployVerticle(
-      "io.vertx.guides.wiki.database.WikiDatabaseVerticle");
-    // end::rx-deploy-verticle[]
+    long start = System.currentTimeMillis();
+
+    installTracing();
+
+    // tag::rx-concurrent-deployment[]
+    Single<String> dbVerticleDeployment = deploy("io.vertx.guides.wiki.database.WikiDatabaseVerticle",
+      new DeploymentOptions()).cache(); // <1>
+
+    Single<String> authDeployment = deploy("io.vertx.guides.wiki.http.AuthInitializerVerticle", new DeploymentOptions())
+      .flatMap(id -> deploy("io.vertx.guides.wiki.auth.AuthServiceVerticle", new DeploymentOptions())) // <2>
+      .cache();
+
+    Completable readiness = Single.zip(dbVerticleDeployment, authDeployment, (db, auth) -> db) // <3>
+      .ignoreElement()
+      .doOnComplete(() -> {
+        LOGGER.info("Ready after {} ms", System.currentTimeMillis() - start);
+        Readiness.signal(vertx.getDelegate());
+      });
 
-    // tag::rx-sequential-composition[]
-    dbVerticleDeployment
-      .flatMap(id -> { // <1>
+    Single<String> httpVerticleDeployment = deploy("io.vertx.guides.wiki.http.HttpServerVerticle",
+      new DeploymentOptions()
+        .setInstances(2)
+        .setConfig(new JsonObject().put(HttpServerVerticle.CONFIG_HTTP_AWAIT_READINESS, true))); // <4>
 
-        Single<String> httpVerticleDeployment = vertx.rxDeployVerticle(
-          "io.vertx.guides.wiki.http.HttpServerVerticle",
-          new DeploymentOptions().setInstances(2));
+    Single<String> backupDeployment = deploy("io.vertx.guides.wiki.backup.BackupVerticle", new DeploymentOptions());
+
+    Completable.mergeArray(readiness, httpVerticleDeployment.ignoreElement(), backupDeployment.ignoreElement()) // <5>
+      .subscribe(() -> {
+        LOGGER.info("Started after {} ms", System.currentTimeMillis() - start);
+        promise.complete();
+      }, promise::fail);
+    // end::rx-concurrent-deployment[]
+  }
+
+  @Override
+  public void stop(Promise<Void> promise) {
+    stopped = true;
+    Tracer.install(vertx.getDelegate(), SpanExporter.NOOP);
+    spanExporter.close(promise);
+  }
+
+  /*
+   * Tracing is off unless a tracing file is configured, then the sampled spans are exported to it as JSON lines.
+   * Requests that arrive before the file is open are simply not sampled.
+   */
+  private void installTracing() {
+    String file = config().getString(CONFIG_TRACING_FILE, "");
+    if (file.isEmpty()) {
+      return;
+    }
+    double sampleRate = config().getDouble(CONFIG_TRACING_SAMPLE_RATE, 0.1);
+    SpanExporter.file(vertx.getDelegate(), file, ar -> {
+      if (ar.succeeded()) {
+        if (stopped) {
+          ar.result().close(closed -> {
+          });
+          return;
+        }
+        spanExporter = ar.result();
+        Tracer.install(vertx.getDelegate(), spanExporter, sampleRate);
+        LOGGER.info("Exporting {}% of traces to {}", sampleRate * 100, file);
+      } else {
+        LOGGER.warn("Tracing disabled, could not open " + file, ar.cause());
+      }
+    });
+  }
 
-        return httpVerticleDeployment;
-      })
-      .flatMap(id -> vertx.rxDeployVerticle("io.vertx.guides.wiki.http.AuthInitializerVerticle")) // <2>
-      .subscribe(id -> promise.complete(), promise::fail); // <3>
-    // end::rx-sequential-composition[]
+  private Single<String> deploy(String verticle, DeploymentOptions options) {
+    return Single.defer(() -> {
+      long start = System.currentTimeMillis();
+      // tag::rx-deploy-verticle[]
+      Single<String> deployment = vertx.rxDeployVerticle(verticle, options);
+      // end::rx-deploy-verticle[]
+      return deployment.doOnSuccess(id ->
+        LOGGER.info("Deployed {} in {} ms", verticle, System.currentTimeMillis() - start));
+    });
   }
 }
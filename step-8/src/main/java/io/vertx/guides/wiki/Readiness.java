@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+
+/**
+ * Tells verticles that the database and authentication schemas have been created, whether they were deployed before or
+ * after that happened.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public final class Readiness {
+
+  public static final String READY_ADDRESS = "wiki.ready";
+
+  private static final String READINESS_MAP = "wiki.readiness";
+
+  private Readiness() {
+  }
+
+  public static void signal(Vertx vertx) {
+    LocalMap<String, Boolean> readiness = vertx.sharedData().getLocalMap(READINESS_MAP);
+    readiness.put("ready", true);
+    vertx.eventBus().publish(READY_ADDRESS, true);
+  }
+
+  /**
+   * Calls the handler once ready, which may be immediately. The handler may be called more than once.
+   */
+  public static void whenReady(Vertx vertx, Handler<Void> handler) {
+    vertx.eventBus().consumer(READY_ADDRESS, message -> handler.handle(null));
+    LocalMap<String, Boolean> readiness = vertx.sharedData().getLocalMap(READINESS_MAP);
+    if (readiness.getOrDefault("ready", false)) {
+      handler.handle(null);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.Nullable;
+import io.vertx.codegen.annotations.ProxyGen;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.jdbc.JDBCHashStrategy;
+import io.vertx.ext.jdbc.JDBCClient;
+
+/**
+ * Authentication and authorization of wiki users, backed by the {@code user}, {@code user_roles} and
+ * {@code roles_perms} tables.
+ * <p>
+ * Authorities are returned as the keys of a JSON object, {@code role:<role>} for roles and {@code <perm>} for
+ * permissions.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@ProxyGen
+@VertxGen
+public interface AuthService {
+
+  @GenIgnore
+  static AuthService create(JDBCClient dbClient, JDBCHashStrategy hashStrategy, int cacheSize, long cacheTtl) {
+    return new AuthServiceImpl(dbClient, hashStrategy, cacheSize, cacheTtl);
+  }
+
+  @GenIgnore
+  static io.vertx.guides.wiki.auth.reactivex.AuthService createProxy(Vertx vertx, String address) {
+    return new io.vertx.guides.wiki.auth.reactivex.AuthService(new AuthServiceVertxEBProxy(vertx, address));
+  }
+
+  /**
+   * Checks the password of a user, and replies with {@code {"username": ..., "authorities": {...}}}.
+   */
+  @Fluent
+  AuthService authenticate(String username, String password, Handler<AsyncResult<JsonObject>> resultHandler);
+
+  @Fluent
+  AuthService authorities(String username, Handler<AsyncResult<JsonObject>> resultHandler);
+
+  /**
+   * Drops the cached credentials and authorities of a user, or of all users when {@code username} is {@code null}.
+   */
+  @Fluent
+  AuthService invalidate(@Nullable String username, Handler<AsyncResult<Void>> resultHandler);
+}
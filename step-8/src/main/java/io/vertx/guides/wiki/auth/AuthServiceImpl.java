@@ -0,0 +1,138 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.reactivex.Maybe;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.jdbc.JDBCHashStrategy;
+import io.vertx.reactivex.SingleHelper;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the credentials and authorities of recently seen users in a bounded LRU, so that repeated logins and
+ * permission checks do not hit the database until the entry expires or is invalidated. Unknown users are not cached.
+ * <p>
+ * Service proxies call the service on the event loop of the verticle that registered it, hence no synchronization.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class AuthServiceImpl implements AuthService {
+
+  private static final String SQL_CREDENTIALS = "select password, password_salt from user where username = ?";
+
+  private final JDBCClient dbClient;
+  private final JDBCAuthorities authorities;
+  private final JDBCHashStrategy hashStrategy;
+  private final long cacheTtl;
+  private final LinkedHashMap<String, CachedUser> cache;
+
+  AuthServiceImpl(io.vertx.ext.jdbc.JDBCClient dbClient, JDBCHashStrategy hashStrategy, int cacheSize, long cacheTtl) {
+    this.dbClient = new JDBCClient(dbClient);
+    this.authorities = JDBCAuthorities.create(this.dbClient);
+    this.hashStrategy = hashStrategy;
+    this.cacheTtl = cacheTtl;
+    this.cache = new LinkedHashMap<String, CachedUser>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  @Override
+  public AuthService authenticate(String username, String password, Handler<AsyncResult<JsonObject>> resultHandler) {
+    lookup(username)
+      .filter(user -> password != null && matches(hashStrategy.computeHash(password, user.salt, -1), user.passwordHash))
+      .map(user -> new JsonObject()
+        .put("username", username)
+        .put("authorities", user.authorities))
+      .switchIfEmpty(Maybe.error(new IllegalArgumentException("Invalid username/password")))
+      .toSingle()
+      .subscribe(SingleHelper.toObserver(resultHandler));
+    return this;
+  }
+
+  @Override
+  public AuthService authorities(String username, Handler<AsyncResult<JsonObject>> resultHandler) {
+    lookup(username)
+      .map(user -> user.authorities)
+      .toSingle(new JsonObject())
+      .subscribe(SingleHelper.toObserver(resultHandler));
+    return this;
+  }
+
+  @Override
+  public AuthService invalidate(String username, Handler<AsyncResult<Void>> resultHandler) {
+    if (username != null) {
+      cache.remove(username);
+    } else {
+      cache.clear();
+    }
+    resultHandler.handle(Future.succeededFuture());
+    return this;
+  }
+
+  private Maybe<CachedUser> lookup(String username) {
+    if (username == null) {
+      return Maybe.empty();
+    }
+    CachedUser cached = cache.get(username);
+    if (cached != null && cached.expires > System.currentTimeMillis()) {
+      return Maybe.just(cached);
+    }
+    return dbClient.rxQueryWithParams(SQL_CREDENTIALS, new JsonArray().add(username))
+      .filter(rs -> rs.getNumRows() > 0)
+      .flatMapSingleElement(rs -> authorities.rxLoad(username).map(granted -> {
+        JsonArray row = rs.getResults().get(0);
+        CachedUser user = new CachedUser(row.getString(0), row.getString(1), granted,
+          System.currentTimeMillis() + cacheTtl);
+        cache.put(username, user);
+        return user;
+      }));
+  }
+
+  private static boolean matches(String computedHash, String storedHash) {
+    return storedHash != null && MessageDigest.isEqual(
+      computedHash.getBytes(StandardCharsets.UTF_8),
+      storedHash.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static final class CachedUser {
+
+    final String passwordHash;
+    final String salt;
+    final JsonObject authorities;
+    final long expires;
+
+    CachedUser(String passwordHash, String salt, JsonObject authorities, long expires) {
+      this.passwordHash = passwordHash;
+      this.salt = salt;
+      this.authorities = authorities;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.jdbc.JDBCHashStrategy;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.serviceproxy.ServiceBinder;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * Exposes the {@link AuthService} on the event bus, with a connection pool of its own so that authentication load does
+ * not compete with page queries, and can be scaled and measured separately.
+ * <p>
+ * It also applies the {@link AuthoritiesInvalidation} published to its Vert.x instance, hence it must be deployed once
+ * per instance.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class AuthServiceVerticle extends AbstractVerticle {
+
+  public static final String CONFIG_AUTH_QUEUE = "auth.queue";
+  public static final String CONFIG_AUTH_JDBC_MAX_POOL_SIZE = "auth.jdbc.max_pool_size";
+  public static final String CONFIG_AUTH_CACHE_SIZE = "auth.cache.size";
+  public static final String CONFIG_AUTH_CACHE_TTL = "auth.cache.ttl.ms";
+
+  private static final String AUTH_DATA_SOURCE = "wiki-auth";
+
+  @Override
+  public void start(Promise<Void> promise) throws Exception {
+
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", config().getString(CONFIG_WIKIDB_JDBC_URL, DEFAULT_WIKIDB_JDBC_URL))
+      .put("driver_class", config().getString(CONFIG_WIKIDB_JDBC_DRIVER_CLASS, DEFAULT_WIKIDB_JDBC_DRIVER_CLASS))
+      .put("max_pool_size", config().getInteger(CONFIG_AUTH_JDBC_MAX_POOL_SIZE, 5)), AUTH_DATA_SOURCE);
+
+    AuthService authService = AuthService.create(dbClient, JDBCHashStrategy.createSHA512(vertx),
+      config().getInteger(CONFIG_AUTH_CACHE_SIZE, 10_000),
+      config().getLong(CONFIG_AUTH_CACHE_TTL, 60_000L));
+
+    new ServiceBinder(vertx)
+      .setAddress(config().getString(CONFIG_AUTH_QUEUE, "auth.queue"))
+      .register(AuthService.class, authService);
+
+    vertx.eventBus().<String>consumer(AuthoritiesInvalidation.ADDRESS, message -> {
+      AuthoritiesInvalidation.bump(vertx, message.body());
+      authService.invalidate(message.body(), ar -> {
+      });
+    });
+    promise.complete();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.auth;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+
+/**
+ * Invalidations of the authorities that are cached for the users of the wiki.
+ * <p>
+ * An invalidation is published on {@link #ADDRESS} with a username, or {@code null} for all users. The
+ * {@link AuthServiceVerticle} of each Vert.x instance applies it once: it drops the cached credentials of its service,
+ * and bumps the generation counter that the permission caches of the instance compare their entries against.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public final class AuthoritiesInvalidation {
+
+  public static final String ADDRESS = "wiki.permissions.invalidate";
+
+  private static final String GENERATIONS_MAP = "wiki.permissions";
+  private static final String ALL_USERS = "*";
+
+  private AuthoritiesInvalidation() {
+  }
+
+  /**
+   * Invalidates the cached authorities of a user, or of all users when {@code username} is {@code null}, on all nodes.
+   */
+  public static void publish(Vertx vertx, String username) {
+    vertx.eventBus().publish(ADDRESS, username);
+  }
+
+  /**
+   * @return the generation counters of this Vert.x instance, to be read with {@link #generation(LocalMap, String)}
+   */
+  public static LocalMap<String, Long> generations(Vertx vertx) {
+    return vertx.sharedData().getLocalMap(GENERATIONS_MAP);
+  }
+
+  /**
+   * @return a counter that changes whenever the authorities of the user are invalidated on this Vert.x instance
+   */
+  public static long generation(LocalMap<String, Long> generations, String username) {
+    return generations.getOrDefault(username, 0L) + generations.getOrDefault(ALL_USERS, 0L);
+  }
+
+  /**
+   * Bumps the generation of a user, or of all users when {@code username} is {@code null}, on this Vert.x instance.
+   */
+  static void bump(Vertx vertx, String username) {
+    generations(vertx).merge(username != null ? username : ALL_USERS, 1L, Long::sum);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.AbstractUser;
+import io.vertx.ext.auth.AuthProvider;
+import io.vertx.ext.auth.User;
+
+/**
+ * An {@link AuthProvider} that authenticates {@code {"username": ..., "password": ...}} credentials with the
+ * {@link AuthService} over the event bus. The users it returns carry their authorities, so that authorization checks
+ * on them do not go back to the service.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class EventBusAuthProvider implements AuthProvider {
+
+  private final AuthService authService;
+
+  public static EventBusAuthProvider create(Vertx vertx, String address) {
+    return new EventBusAuthProvider(new AuthServiceVertxEBProxy(vertx, address));
+  }
+
+  public EventBusAuthProvider(AuthService authService) {
+    this.authService = authService;
+  }
+
+  @Override
+  public void authenticate(JsonObject authInfo, Handler<AsyncResult<User>> resultHandler) {
+    String username = authInfo.getString("username");
+    String password = authInfo.getString("password");
+    if (username == null || password == null) {
+      resultHandler.handle(Future.failedFuture("Missing username or password"));
+      return;
+    }
+    authService.authenticate(username, password, ar -> {
+      if (ar.succeeded()) {
+        resultHandler.handle(Future.succeededFuture(new AuthServiceUser(
+          new JsonObject().put("username", username),
+          ar.result().getJsonObject("authorities", new JsonObject()))));
+      } else {
+        resultHandler.handle(Future.failedFuture(ar.cause()));
+      }
+    });
+  }
+
+  public static final class AuthServiceUser extends AbstractUser {
+
+    private JsonObject principal;
+    private JsonObject authorities;
+
+    public AuthServiceUser() {
+    }
+
+    AuthServiceUser(JsonObject principal, JsonObject authorities) {
+      this.principal = principal;
+      this.authorities = authorities;
+    }
+
+    @Override
+    protected void doIsPermitted(String authority, Handler<AsyncResult<Boolean>> resultHandler) {
+      resultHandler.handle(Future.succeededFuture(authorities.containsKey(authority)));
+    }
+
+    @Override
+    public JsonObject principal() {
+      return principal;
+    }
+
+    @Override
+    public void setAuthProvider(AuthProvider authProvider) {
+    }
+
+    @Override
+    public void writeToBuffer(Buffer buffer) {
+      super.writeToBuffer(buffer);
+      principal.writeToBuffer(buffer);
+      authorities.writeToBuffer(buffer);
+    }
+
+    @Override
+    public int readFromBuffer(int pos, Buffer buffer) {
+      pos = super.readFromBuffer(pos, buffer);
+      principal = new JsonObject();
+      pos = principal.readFromBuffer(pos, buffer);
+      authorities = new JsonObject();
+      return authorities.readFromBuffer(pos, buffer);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.reactivex.Single;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+
+/**
+ * Complements {@code JDBCAuth} by loading all the roles and permissions of a user with one joined query on the
+ * {@code user_roles} and {@code roles_perms} tables, instead of one query per {@code isAuthorized} call.
+ * <p>
+ * Authorities are returned as the keys of a JSON object, named like {@code JDBCAuth} does: {@code role:<role>} for
+ * roles and {@code <perm>} for permissions.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class JDBCAuthorities {
+
+  private static final String ROLE_PREFIX = "role:";
+
+  private static final String SQL_USER_AUTHORITIES =
+    "select ur.role, rp.perm from user_roles ur left join roles_perms rp on ur.role = rp.role where ur.username = ?";
+
+  private final JDBCClient dbClient;
+
+  public static JDBCAuthorities create(JDBCClient dbClient) {
+    return new JDBCAuthorities(dbClient);
+  }
+
+  private JDBCAuthorities(JDBCClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  public Single<JsonObject> rxLoad(String username) {
+    return dbClient.rxQueryWithParams(SQL_USER_AUTHORITIES, new JsonArray().add(username))
+      .map(rs -> {
+        JsonObject authorities = new JsonObject();
+        for (JsonArray row : rs.getResults()) {
+          authorities.put(ROLE_PREFIX + row.getString(0), true);
+          if (row.getString(1) != null) {
+            authorities.put(row.getString(1), true);
+          }
+        }
+        return authorities;
+      });
+  }
+}
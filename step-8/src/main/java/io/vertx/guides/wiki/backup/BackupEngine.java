@@ -0,0 +1,323 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileProps;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.SQLRowStream;
+import io.vertx.ext.sql.UpdateResult;
+
+import java.io.File;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes the pages of the wiki to gzip-compressed files with one JSON object per line, and restores them.
+ * <p>
+ * A backup is either a full snapshot of the {@code Pages} table, or a delta with the pages that changed since the
+ * previous backup according to the {@code PageChanges} log. Each backup covers the changes up to the latest log version
+ * at the time it starts; deltas carry the current content of the changed pages, or a {@code deleted} marker, so that
+ * replaying them is idempotent even when a backup also caught later changes. The chain of the last snapshot and its
+ * deltas is kept in a {@code manifest.json} file next to the archives, and a new snapshot is taken after
+ * {@code snapshotInterval} deltas, which also prunes the change log.
+ * <p>
+ * Rows are streamed from the database and written as they arrive: the row stream is paused whenever the file write
+ * queue is full, so memory use does not depend on the size of the wiki.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class BackupEngine {
+
+  static final String MANIFEST = "manifest.json";
+
+  static final String VERSION_QUERY = "select coalesce(max(Version), -1) from PageChanges";
+  static final String SNAPSHOT_QUERY = "select Id, Name, Content from Pages order by Id";
+  static final String DELTA_QUERY = "select c.PageId, p.Name, p.Content " +
+    "from (select distinct PageId from PageChanges where Version > ? and Version <= ?) c " +
+    "left join Pages p on p.Id = c.PageId order by c.PageId";
+  static final String PRUNE_QUERY = "delete from PageChanges where Version <= ?";
+
+  private final Vertx vertx;
+  private final JDBCClient dbClient;
+  private final String directory;
+  private final int snapshotInterval;
+
+  public BackupEngine(Vertx vertx, JDBCClient dbClient, String directory, int snapshotInterval) {
+    this.vertx = vertx;
+    this.dbClient = dbClient;
+    this.directory = directory;
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  /**
+   * Backs up the changes since the previous backup, or all pages when {@code full} is set or a snapshot is due.
+   *
+   * @param resultHandler called with the manifest entry of the backup, with the full path of its {@code file}
+   */
+  public void backup(boolean full, Handler<AsyncResult<JsonObject>> resultHandler) {
+    Future.<Void>future(promise -> vertx.fileSystem().mkdirs(directory, promise))
+      .compose(v -> readManifest())
+      .compose(manifest -> withConnection(connection -> backup(connection, manifest, full)))
+      .setHandler(resultHandler);
+  }
+
+  /**
+   * Replaces the pages of the wiki with those of the last snapshot and its deltas.
+   *
+   * @param resultHandler called with the number of {@code archives} and {@code records} that were replayed
+   */
+  public void restore(Handler<AsyncResult<JsonObject>> resultHandler) {
+    readManifest()
+      .compose(manifest -> {
+        JsonArray chain = manifest.getJsonArray("chain", new JsonArray());
+        if (chain.isEmpty()) {
+          return Future.failedFuture("There is no backup to restore");
+        }
+        return withConnection(connection -> restore(connection, chain));
+      })
+      .setHandler(resultHandler);
+  }
+
+  private Future<JsonObject> backup(SQLConnection connection, JsonObject manifest, boolean full) {
+    return Future.<ResultSet>future(promise -> connection.query(VERSION_QUERY, promise)).compose(rs -> {
+      long version = rs.getResults().get(0).getLong(0);
+      JsonArray chain = manifest.getJsonArray("chain", new JsonArray());
+      JsonObject last = chain.isEmpty() ? null : chain.getJsonObject(chain.size() - 1);
+      boolean snapshot = full
+        || last == null
+        || chain.size() > snapshotInterval
+        || version < last.getLong("to");
+      long from = snapshot ? -1L : last.getLong("to");
+
+      String name = "wiki-" + System.currentTimeMillis() + (snapshot ? "-full" : "-delta") + ".ndjson.gz";
+      String path = directory + File.separator + name;
+      Future<Integer> pages = snapshot ?
+        archive(path, handler -> connection.queryStream(SNAPSHOT_QUERY, handler)) :
+        archive(path, handler -> connection.queryStreamWithParams(DELTA_QUERY, new JsonArray().add(from).add(version), handler));
+
+      return pages
+        .compose(count -> Future.<FileProps>future(promise -> vertx.fileSystem().props(path, promise))
+          .map(props -> new JsonObject()
+            .put("type", snapshot ? "full" : "delta")
+            .put("file", name)
+            .put("from", from)
+            .put("to", version)
+            .put("pages", count)
+            .put("size", props.size())))
+        .compose(entry -> {
+          JsonArray newChain = snapshot ? new JsonArray() : chain.copy();
+          newChain.add(entry);
+          return writeManifest(manifest.copy().put("chain", newChain)).map(entry);
+        })
+        .recover(t -> Future.<Void>future(promise -> vertx.fileSystem().delete(path, deleted -> promise.complete()))
+          .compose(v -> Future.failedFuture(t)))
+        .compose(entry -> {
+          if (!snapshot) {
+            return Future.succeededFuture(entry);
+          }
+          // The log is only needed for the next deltas, and pruning it again at the next snapshot is harmless
+          return Future.<UpdateResult>future(promise -> connection.updateWithParams(PRUNE_QUERY, new JsonArray().add(version), promise))
+            .otherwiseEmpty()
+            .map(entry);
+        })
+        .map(entry -> entry.copy().put("file", path));
+    });
+  }
+
+  private Future<Integer> archive(String path, Consumer<Handler<AsyncResult<SQLRowStream>>> query) {
+    return Future.<AsyncFile>future(promise ->
+      vertx.fileSystem().open(path, new OpenOptions().setWrite(true).setCreateNew(true), promise))
+      .compose(file -> Future.<SQLRowStream>future(query::accept)
+        .recover(t -> Future.<Void>future(file::close).compose(v -> Future.failedFuture(t)))
+        .compose(rows -> write(rows, new GzipWriteStream(file))));
+  }
+
+  private Future<Integer> write(SQLRowStream rows, GzipWriteStream archive) {
+    Promise<Integer> promise = Promise.promise();
+    int[] count = {0};
+    archive.exceptionHandler(t -> {
+      rows.close();
+      promise.tryFail(t);
+    });
+    rows.exceptionHandler(t -> archive.end(ended -> promise.tryFail(t)));
+    rows.handler(row -> {
+      count[0]++;
+      archive.write(Buffer.buffer(toJson(row).encode()).appendString("\n"));
+      if (archive.writeQueueFull()) {
+        rows.pause();
+        archive.drainHandler(v -> rows.resume());
+      }
+    });
+    rows.endHandler(v -> archive.end(end -> {
+      if (end.succeeded()) {
+        promise.tryComplete(count[0]);
+      } else {
+        promise.tryFail(end.cause());
+      }
+    }));
+    return promise.future();
+  }
+
+  private JsonObject toJson(JsonArray row) {
+    JsonObject json = new JsonObject().put("id", row.getInteger(0));
+    if (row.getValue(1) == null) {
+      return json.put("deleted", true);
+    }
+    return json
+      .put("name", row.getString(1))
+      .put("content", row.getString(2));
+  }
+
+  private Future<JsonObject> restore(SQLConnection connection, JsonArray chain) {
+    long lastVersion = chain.getJsonObject(chain.size() - 1).getLong("to");
+    return Future.<Void>future(promise -> connection.setAutoCommit(false, promise))
+      .compose(v -> Future.<UpdateResult>future(promise -> connection.update("delete from Pages", promise)))
+      .compose(v -> {
+        Future<Integer> records = Future.succeededFuture(0);
+        for (int i = 0; i < chain.size(); i++) {
+          String path = directory + File.separator + chain.getJsonObject(i).getString("file");
+          records = records.compose(count -> replay(connection, path).map(replayed -> count + replayed));
+        }
+        return records;
+      })
+      .compose(records -> Future.<Void>future(connection::commit).map(records))
+      .recover(t -> Future.<Void>future(connection::rollback)
+        .compose(v -> Future.<Void>future(promise -> connection.setAutoCommit(true, promise)))
+        .otherwiseEmpty()
+        .compose(v -> Future.failedFuture(t)))
+      .compose(records -> restartIdentities(connection, lastVersion).map(new JsonObject()
+        .put("archives", chain.size())
+        .put("records", records)));
+  }
+
+  /*
+   * New pages must not reuse the restored ids, and new changes must be ordered after those of the backups.
+   */
+  private Future<Void> restartIdentities(SQLConnection connection, long lastVersion) {
+    return Future.<Void>future(promise -> connection.setAutoCommit(true, promise))
+      .compose(v -> Future.<ResultSet>future(promise -> connection.query(
+        "select coalesce(max(Id), -1) + 1, (select coalesce(max(Version), -1) + 1 from PageChanges) from Pages", promise)))
+      .compose(rs -> {
+        JsonArray next = rs.getResults().get(0);
+        long nextVersion = Math.max(next.getLong(1), lastVersion + 1);
+        return Future.<Void>future(promise -> connection.execute(
+          "alter table Pages alter column Id restart with " + next.getInteger(0), promise))
+          .compose(v -> Future.<Void>future(promise -> connection.execute(
+            "alter table PageChanges alter column Version restart with " + nextVersion, promise)));
+      });
+  }
+
+  private Future<Integer> replay(SQLConnection connection, String path) {
+    return Future.<AsyncFile>future(promise ->
+      vertx.fileSystem().open(path, new OpenOptions().setRead(true).setWrite(false), promise))
+      .compose(file -> {
+        Promise<Integer> promise = Promise.promise();
+        int[] count = {0};
+        boolean[] ended = {false};
+        boolean[] applying = {false};
+        RecordParser lines = RecordParser.newDelimited("\n", new GunzipReadStream(file));
+        lines.exceptionHandler(promise::tryFail);
+        lines.handler(line -> {
+          lines.pause();
+          applying[0] = true;
+          apply(connection, line.toJsonObject()).setHandler(ar -> {
+            applying[0] = false;
+            if (ar.failed()) {
+              promise.tryFail(ar.cause());
+              return;
+            }
+            count[0]++;
+            if (ended[0]) {
+              promise.tryComplete(count[0]);
+            } else {
+              lines.resume();
+            }
+          });
+        });
+        lines.endHandler(v -> {
+          ended[0] = true;
+          if (!applying[0]) {
+            promise.tryComplete(count[0]);
+          }
+        });
+        return andFinally(promise.future(), file::close);
+      });
+  }
+
+  private Future<Void> apply(SQLConnection connection, JsonObject record) {
+    Future<Void> deleted = Future.<UpdateResult>future(promise ->
+      connection.updateWithParams("delete from Pages where Id = ?", new JsonArray().add(record.getInteger("id")), promise))
+      .mapEmpty();
+    if (record.getBoolean("deleted", false)) {
+      return deleted;
+    }
+    return deleted.compose(v -> Future.<UpdateResult>future(promise ->
+      connection.updateWithParams("insert into Pages values (?, ?, ?)", new JsonArray()
+        .add(record.getInteger("id"))
+        .add(record.getString("name"))
+        .add(record.getString("content")), promise)))
+      .mapEmpty();
+  }
+
+  private Future<JsonObject> readManifest() {
+    String path = directory + File.separator + MANIFEST;
+    return Future.<Boolean>future(promise -> vertx.fileSystem().exists(path, promise))
+      .compose(exists -> {
+        if (!exists) {
+          return Future.succeededFuture(new JsonObject());
+        }
+        return Future.<Buffer>future(promise -> vertx.fileSystem().readFile(path, promise)).map(Buffer::toJsonObject);
+      });
+  }
+
+  /*
+   * The manifest is replaced atomically so that a crash never leaves a chain that does not match the archives.
+   */
+  private Future<Void> writeManifest(JsonObject manifest) {
+    String path = directory + File.separator + MANIFEST;
+    String tmp = path + ".tmp";
+    return Future.<Void>future(promise -> vertx.fileSystem().writeFile(tmp, manifest.toBuffer(), promise))
+      .compose(v -> Future.<Void>future(promise ->
+        vertx.fileSystem().move(tmp, path, new CopyOptions().setReplaceExisting(true).setAtomicMove(true), promise)));
+  }
+
+  private <T> Future<T> withConnection(Function<SQLConnection, Future<T>> action) {
+    return Future.<SQLConnection>future(dbClient::getConnection)
+      .compose(connection -> andFinally(action.apply(connection), connection::close));
+  }
+
+  private static <T> Future<T> andFinally(Future<T> future, Consumer<Handler<AsyncResult<Void>>> cleanup) {
+    Promise<T> promise = Promise.promise();
+    future.setHandler(ar -> cleanup.accept(done -> promise.handle(ar)));
+    return promise.future();
+  }
+}
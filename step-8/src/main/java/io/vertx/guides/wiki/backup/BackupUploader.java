@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * Sends a backup archive somewhere safer than the local disk.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public interface BackupUploader {
+
+  /**
+   * Uploads an archive over HTTP with a chunked {@code POST} request.
+   *
+   * @param url the absolute URL to post the archive to
+   */
+  static BackupUploader http(Vertx vertx, String url) {
+    return new HttpBackupUploader(vertx, url);
+  }
+
+  /**
+   * @param file          the archive to upload
+   * @param resultHandler called with the location of the uploaded archive
+   */
+  void upload(String file, Handler<AsyncResult<String>> resultHandler);
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * Backs up the wiki when it receives a message on the backup queue, and replies with the description of the backup.
+ * A message with {@code full} set to {@code true} forces a full snapshot, and a message with an {@code action} header
+ * set to {@code restore} restores the wiki from the backups instead.
+ * <p>
+ * Pages are read with a streaming query on a connection pool of its own, since the database service can only return
+ * whole result sets. Only one backup or restore runs at a time. The archive is uploaded when {@code backup.upload.url}
+ * is set, in which case the reply also has the {@code url} of the upload.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class BackupVerticle extends AbstractVerticle {
+
+  public static final String CONFIG_BACKUP_QUEUE = "backup.queue";
+  public static final String CONFIG_BACKUP_DIR = "backup.dir";
+  public static final String CONFIG_BACKUP_UPLOAD_URL = "backup.upload.url";
+  public static final String CONFIG_BACKUP_JDBC_MAX_POOL_SIZE = "backup.jdbc.max_pool_size";
+  public static final String CONFIG_BACKUP_SNAPSHOT_INTERVAL = "backup.snapshot.interval";
+
+  public static final int BACKUP_IN_PROGRESS = 409;
+  public static final int BACKUP_FAILED = 500;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BackupVerticle.class);
+
+  private static final String BACKUP_DATA_SOURCE = "wiki-backup";
+
+  private boolean running;
+
+  @Override
+  public void start(Promise<Void> promise) throws Exception {
+
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", config().getString(CONFIG_WIKIDB_JDBC_URL, DEFAULT_WIKIDB_JDBC_URL))
+      .put("driver_class", config().getString(CONFIG_WIKIDB_JDBC_DRIVER_CLASS, DEFAULT_WIKIDB_JDBC_DRIVER_CLASS))
+      .put("max_pool_size", config().getInteger(CONFIG_BACKUP_JDBC_MAX_POOL_SIZE, 1)), BACKUP_DATA_SOURCE);
+
+    BackupEngine engine = new BackupEngine(vertx, dbClient, config().getString(CONFIG_BACKUP_DIR, "backups"),
+      config().getInteger(CONFIG_BACKUP_SNAPSHOT_INTERVAL, 10));
+    String uploadUrl = config().getString(CONFIG_BACKUP_UPLOAD_URL);
+    BackupUploader uploader = uploadUrl != null ? BackupUploader.http(vertx, uploadUrl) : null;
+
+    vertx.eventBus().<JsonObject>consumer(config().getString(CONFIG_BACKUP_QUEUE, "backup.queue"), message -> {
+      if (running) {
+        message.fail(BACKUP_IN_PROGRESS, "A backup is already in progress");
+        return;
+      }
+      running = true;
+      if ("restore".equals(message.headers().get("action"))) {
+        engine.restore(restore -> {
+          running = false;
+          if (restore.succeeded()) {
+            LOGGER.info("Restored {} records from {} archives", restore.result().getInteger("records"),
+              restore.result().getInteger("archives"));
+            message.reply(restore.result());
+          } else {
+            LOGGER.error("Restore failed", restore.cause());
+            message.fail(BACKUP_FAILED, restore.cause().getMessage());
+          }
+        });
+        return;
+      }
+      boolean full = message.body() != null && message.body().getBoolean("full", false);
+      engine.backup(full, backup -> {
+        if (backup.failed()) {
+          running = false;
+          LOGGER.error("Backup failed", backup.cause());
+          message.fail(BACKUP_FAILED, backup.cause().getMessage());
+          return;
+        }
+        JsonObject result = backup.result();
+        LOGGER.info("Backed up {} pages to {} ({}, {} bytes)", result.getInteger("pages"), result.getString("file"),
+          result.getString("type"), result.getLong("size"));
+        if (uploader == null) {
+          running = false;
+          message.reply(result);
+          return;
+        }
+        uploader.upload(result.getString("file"), upload -> {
+          running = false;
+          if (upload.succeeded()) {
+            message.reply(result.put("url", upload.result()));
+          } else {
+            LOGGER.error("Backup upload failed", upload.cause());
+            message.fail(BACKUP_FAILED, upload.cause().getMessage());
+          }
+        });
+      });
+    }).completionHandler(promise);
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.io.EOFException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A read stream that decompresses the archives written by {@link GzipWriteStream} as they are read from another stream.
+ * Flow control is delegated to the compressed stream.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class GunzipReadStream implements ReadStream<Buffer> {
+
+  private static final int HEADER_SIZE = 10;
+
+  private final ReadStream<Buffer> delegate;
+  private final Inflater inflater = new Inflater(true);
+  private final byte[] chunk = new byte[8192];
+  private final Buffer header = Buffer.buffer(HEADER_SIZE);
+  private Handler<Throwable> exceptionHandler;
+  private boolean failed;
+
+  GunzipReadStream(ReadStream<Buffer> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public GunzipReadStream exceptionHandler(Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public GunzipReadStream handler(Handler<Buffer> handler) {
+    if (handler == null) {
+      delegate.handler(null);
+      return this;
+    }
+    delegate.handler(data -> {
+      if (failed) {
+        return;
+      }
+      try {
+        Buffer inflated = inflate(data.getBytes());
+        if (inflated.length() > 0) {
+          handler.handle(inflated);
+        }
+      } catch (ZipException | DataFormatException e) {
+        fail(e);
+      }
+    });
+    return this;
+  }
+
+  @Override
+  public GunzipReadStream pause() {
+    delegate.pause();
+    return this;
+  }
+
+  @Override
+  public GunzipReadStream resume() {
+    delegate.resume();
+    return this;
+  }
+
+  @Override
+  public GunzipReadStream fetch(long amount) {
+    delegate.fetch(amount);
+    return this;
+  }
+
+  @Override
+  public GunzipReadStream endHandler(Handler<Void> endHandler) {
+    delegate.endHandler(v -> {
+      boolean complete = inflater.finished();
+      inflater.end();
+      if (failed) {
+        return;
+      }
+      if (!complete) {
+        fail(new EOFException("Truncated archive"));
+      } else if (endHandler != null) {
+        endHandler.handle(null);
+      }
+    });
+    return this;
+  }
+
+  private Buffer inflate(byte[] bytes) throws ZipException, DataFormatException {
+    int offset = 0;
+    if (header.length() < HEADER_SIZE) {
+      offset = Math.min(HEADER_SIZE - header.length(), bytes.length);
+      header.appendBytes(bytes, 0, offset);
+      if (header.length() < HEADER_SIZE) {
+        return Buffer.buffer();
+      }
+      if (header.getUnsignedShort(0) != 0x1f8b || header.getByte(2) != Deflater.DEFLATED || header.getByte(3) != 0) {
+        throw new ZipException("Not a backup archive");
+      }
+    }
+    Buffer inflated = Buffer.buffer();
+    if (inflater.finished()) {
+      // Trailer
+      return inflated;
+    }
+    inflater.setInput(bytes, offset, bytes.length - offset);
+    while (!inflater.finished() && !inflater.needsInput()) {
+      inflated.appendBytes(chunk, 0, inflater.inflate(chunk));
+    }
+    return inflated;
+  }
+
+  private void fail(Throwable t) {
+    failed = true;
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(t);
+    }
+  }
+}
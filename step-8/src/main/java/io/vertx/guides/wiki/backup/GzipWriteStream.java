@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A write stream that gzip-compresses what it is given into another write stream, one buffer at a time.
+ * <p>
+ * Back-pressure is the one of the underlying stream: {@link #writeQueueFull()} and {@link #drainHandler(Handler)} are
+ * delegated, so the amount of pending data is bounded by the compressed size rather than the input size.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class GzipWriteStream implements WriteStream<Buffer> {
+
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final WriteStream<Buffer> delegate;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final CRC32 crc = new CRC32();
+  private final byte[] chunk = new byte[8192];
+  private boolean headerWritten;
+
+  GzipWriteStream(WriteStream<Buffer> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public GzipWriteStream exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public GzipWriteStream write(Buffer data) {
+    return write(data, null);
+  }
+
+  @Override
+  public GzipWriteStream write(Buffer data, Handler<AsyncResult<Void>> handler) {
+    byte[] bytes = data.getBytes();
+    crc.update(bytes);
+    deflater.setInput(bytes);
+    Buffer compressed = header();
+    while (!deflater.needsInput()) {
+      compressed.appendBytes(chunk, 0, deflater.deflate(chunk));
+    }
+    if (compressed.length() > 0) {
+      delegate.write(compressed, handler);
+    } else if (handler != null) {
+      handler.handle(Future.succeededFuture());
+    }
+    return this;
+  }
+
+  @Override
+  public void end() {
+    end((Handler<AsyncResult<Void>>) null);
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    Buffer compressed = header();
+    deflater.finish();
+    while (!deflater.finished()) {
+      compressed.appendBytes(chunk, 0, deflater.deflate(chunk));
+    }
+    compressed
+      .appendIntLE((int) crc.getValue())
+      .appendIntLE((int) deflater.getBytesRead());
+    deflater.end();
+    delegate.end(compressed, handler);
+  }
+
+  @Override
+  public GzipWriteStream setWriteQueueMaxSize(int maxSize) {
+    delegate.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return delegate.writeQueueFull();
+  }
+
+  @Override
+  public GzipWriteStream drainHandler(Handler<Void> handler) {
+    delegate.drainHandler(handler);
+    return this;
+  }
+
+  private Buffer header() {
+    if (headerWritten) {
+      return Buffer.buffer();
+    }
+    headerWritten = true;
+    return Buffer.buffer().appendBytes(HEADER);
+  }
+}
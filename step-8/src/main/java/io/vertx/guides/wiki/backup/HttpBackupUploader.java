@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Streams an archive from disk to an HTTP endpoint with chunked transfer encoding, reading the next chunk from the file
+ * only when the connection can take it. The location of the upload is the {@code Location} header of the response when
+ * there is one, and the target URL otherwise.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class HttpBackupUploader implements BackupUploader {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final Vertx vertx;
+  private final HttpClient client;
+  private final String url;
+
+  HttpBackupUploader(Vertx vertx, String url) {
+    this.vertx = vertx;
+    this.client = vertx.createHttpClient();
+    this.url = url;
+  }
+
+  @Override
+  public void upload(String file, Handler<AsyncResult<String>> resultHandler) {
+    vertx.fileSystem().open(file, new OpenOptions().setRead(true).setWrite(false), open -> {
+      if (open.failed()) {
+        resultHandler.handle(open.mapEmpty());
+        return;
+      }
+      AsyncFile archive = open.result().setReadBufferSize(CHUNK_SIZE);
+      Promise<String> promise = Promise.promise();
+      promise.future().setHandler(ar -> archive.close(closed -> resultHandler.handle(ar)));
+
+      HttpClientRequest request = client.requestAbs(HttpMethod.POST, url, response -> {
+        if (response.statusCode() / 100 == 2) {
+          String location = response.getHeader("Location");
+          promise.tryComplete(location != null ? location : url);
+        } else {
+          promise.tryFail("Upload rejected: " + response.statusCode() + " " + response.statusMessage());
+        }
+      });
+      request
+        .setChunked(true)
+        .putHeader("Content-Type", "application/gzip")
+        .putHeader("User-Agent", "vert-x3")
+        .exceptionHandler(promise::tryFail);
+      archive.pipeTo(request, piped -> {
+        if (piped.failed()) {
+          request.reset();
+          promise.tryFail(piped.cause());
+        }
+      });
+    });
+  }
+}
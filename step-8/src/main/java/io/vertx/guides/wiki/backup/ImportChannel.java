@@ -0,0 +1,317 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+/**
+ * Carries the body of an import over the event bus, from the HTTP server verticles to the verticle that owns the
+ * database connections.
+ * <p>
+ * The sender asks the import queue for a channel, and then sends the body to the address of the channel, one buffer per
+ * message. At most {@link #WINDOW} buffers are sent before they are acknowledged, and the receiver only acknowledges a
+ * buffer once the importer takes it: since the importer pauses its input while a batch is written, this gives the
+ * sender back-pressure. A message with an {@code end} action ends the body, and its reply is the result of the import.
+ * Once an import fails, the following messages of the sender are failed with its cause. A channel that receives no
+ * message during the idle timeout fails its import.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public final class ImportChannel {
+
+  public static final int IMPORT_IN_PROGRESS = 409;
+  public static final int IMPORT_FAILED = 500;
+
+  static final int WINDOW = 4;
+
+  private static final String ACTION_HEADER = "action";
+  private static final String END = "end";
+  private static final String ABORT = "abort";
+  private static final String IMPORT_LOCK = "wiki.import";
+
+  private ImportChannel() {
+  }
+
+  /**
+   * Opens a channel for each request sent to the import queue, and imports its body. The request has a {@code gzip}
+   * flag, and its reply is the address of the channel. Only one import runs at a time: the other requests are failed
+   * with {@link #IMPORT_IN_PROGRESS}.
+   */
+  public static MessageConsumer<JsonObject> listen(Vertx vertx, String queue, PageImporter importer, long idleTimeout,
+                                                   Handler<JsonObject> progressHandler) {
+    return vertx.eventBus().consumer(queue, request -> vertx.sharedData().getLocalLockWithTimeout(IMPORT_LOCK, 100L, lock -> {
+      if (lock.failed()) {
+        request.fail(IMPORT_IN_PROGRESS, "An import is already in progress");
+        return;
+      }
+      Receiver receiver = new Receiver(vertx, idleTimeout);
+      importer.importPages(receiver, request.body().getBoolean("gzip", false), progressHandler, ar -> {
+        lock.result().release();
+        receiver.complete(ar);
+      });
+      request.reply(receiver.address);
+    }));
+  }
+
+  /**
+   * Sends a body to the import queue, and reports the result of its import.
+   *
+   * @param input         the body, which should be paused
+   * @param timeout       the timeout of each message, including the last one that waits for the end of the import
+   * @param resultHandler called with the result of {@link PageImporter#importPages}, or with the failure of the import
+   */
+  public static void send(Vertx vertx, String queue, boolean gzip, ReadStream<Buffer> input, long timeout,
+                          Handler<AsyncResult<JsonObject>> resultHandler) {
+    DeliveryOptions options = new DeliveryOptions().setSendTimeout(timeout);
+    vertx.eventBus().<String>request(queue, new JsonObject().put("gzip", gzip), options, channel -> {
+      if (channel.failed()) {
+        input.resume();
+        resultHandler.handle(Future.failedFuture(channel.cause()));
+      } else {
+        new Sender(vertx, channel.result().body(), input, options).run().setHandler(resultHandler);
+      }
+    });
+  }
+
+  private static class Sender {
+
+    final Vertx vertx;
+    final String address;
+    final ReadStream<Buffer> input;
+    final DeliveryOptions options;
+    final Promise<JsonObject> promise = Promise.promise();
+    int unacknowledged;
+
+    Sender(Vertx vertx, String address, ReadStream<Buffer> input, DeliveryOptions options) {
+      this.vertx = vertx;
+      this.address = address;
+      this.input = input;
+      this.options = options;
+    }
+
+    Future<JsonObject> run() {
+      input.handler(buffer -> {
+        if (promise.future().isComplete()) {
+          return;
+        }
+        if (++unacknowledged == WINDOW) {
+          input.pause();
+        }
+        vertx.eventBus().request(address, buffer, options, ack -> {
+          if (ack.failed()) {
+            fail(ack.cause());
+          } else if (unacknowledged-- == WINDOW && !promise.future().isComplete()) {
+            input.resume();
+          }
+        });
+      });
+      input.exceptionHandler(this::fail);
+      input.endHandler(v -> {
+        if (promise.future().isComplete()) {
+          return;
+        }
+        vertx.eventBus().<JsonObject>request(address, null, new DeliveryOptions(options).addHeader(ACTION_HEADER, END),
+          result -> {
+            if (result.succeeded()) {
+              promise.tryComplete(result.result().body());
+            } else {
+              promise.tryFail(result.cause());
+            }
+          });
+      });
+      input.resume();
+      return promise.future();
+    }
+
+    void fail(Throwable t) {
+      if (promise.tryFail(t)) {
+        vertx.eventBus().send(address, null, new DeliveryOptions().addHeader(ACTION_HEADER, ABORT));
+        // Drain the rest of the body
+        input.resume();
+      }
+    }
+  }
+
+  private static class Receiver implements ReadStream<Buffer> {
+
+    final Vertx vertx;
+    final Context context;
+    final long idleTimeout;
+    final String address = "wiki.import." + UUID.randomUUID();
+    final MessageConsumer<Buffer> consumer;
+    final Deque<Message<Buffer>> pending = new ArrayDeque<>();
+    Handler<Buffer> handler;
+    Handler<Void> endHandler;
+    Handler<Throwable> exceptionHandler;
+    long demand;
+    long timer;
+    boolean ended;
+    boolean completed;
+    Message<Buffer> end;
+    Throwable failure;
+
+    Receiver(Vertx vertx, long idleTimeout) {
+      this.vertx = vertx;
+      this.context = vertx.getOrCreateContext();
+      this.idleTimeout = idleTimeout;
+      consumer = vertx.eventBus().consumer(address, this::receive);
+      timer = vertx.setTimer(idleTimeout, this::idle);
+    }
+
+    void receive(Message<Buffer> message) {
+      vertx.cancelTimer(timer);
+      String action = message.headers().get(ACTION_HEADER);
+      if (ABORT.equals(action)) {
+        fail(new IllegalStateException("The import was aborted by its sender"));
+        consumer.unregister();
+        return;
+      }
+      if (failure != null) {
+        message.fail(IMPORT_FAILED, failure.getMessage());
+        if (END.equals(action)) {
+          consumer.unregister();
+          return;
+        }
+      } else {
+        pending.add(message);
+      }
+      if (!END.equals(action)) {
+        timer = vertx.setTimer(idleTimeout, this::idle);
+      }
+      drain();
+    }
+
+    void drain() {
+      while (demand > 0L && !pending.isEmpty() && !ended) {
+        Message<Buffer> message = pending.poll();
+        if (END.equals(message.headers().get(ACTION_HEADER))) {
+          ended = true;
+          end = message;
+          if (endHandler != null) {
+            endHandler.handle(null);
+          }
+          return;
+        }
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+        message.reply(null);
+        if (handler != null) {
+          handler.handle(message.body());
+        }
+      }
+    }
+
+    void idle(long id) {
+      if (completed) {
+        consumer.unregister();
+      } else {
+        fail(new IllegalStateException("No data was received for " + idleTimeout + " ms"));
+      }
+    }
+
+    void fail(Throwable t) {
+      if (failure == null && !ended) {
+        failure = t;
+        if (exceptionHandler != null) {
+          exceptionHandler.handle(t);
+        }
+      }
+    }
+
+    void complete(AsyncResult<JsonObject> result) {
+      completed = true;
+      vertx.cancelTimer(timer);
+      if (result.succeeded()) {
+        end.reply(result.result());
+        consumer.unregister();
+        return;
+      }
+      failure = result.cause();
+      pending.forEach(message -> message.fail(IMPORT_FAILED, failure.getMessage()));
+      pending.clear();
+      if (end != null) {
+        end.fail(IMPORT_FAILED, failure.getMessage());
+        consumer.unregister();
+      } else {
+        // Fails the messages that the sender has yet to send, until it ends the body or goes idle
+        timer = vertx.setTimer(idleTimeout, this::idle);
+      }
+    }
+
+    @Override
+    public Receiver exceptionHandler(Handler<Throwable> handler) {
+      exceptionHandler = handler;
+      if (handler != null && failure != null && !completed) {
+        // The channel went idle before the importer was ready
+        context.runOnContext(v -> handler.handle(failure));
+      }
+      return this;
+    }
+
+    @Override
+    public Receiver handler(Handler<Buffer> handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    @Override
+    public Receiver pause() {
+      demand = 0L;
+      return this;
+    }
+
+    @Override
+    public Receiver resume() {
+      return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public Receiver fetch(long amount) {
+      demand += amount;
+      if (demand < 0L) {
+        demand = Long.MAX_VALUE;
+      }
+      // Like the inbound buffers of Vert.x, so that a stream that is resumed from its handler is not re-entered
+      context.runOnContext(v -> drain());
+      return this;
+    }
+
+    @Override
+    public Receiver endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.sql.SQLConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Imports pages from a stream of JSON objects, one per line, such as a backup archive or an export from another wiki.
+ * <p>
+ * The input is parsed as it arrives and pages are created or replaced by name with batched statements. The input stream
+ * is paused while a batch is being written. A commit happens every {@code batchesPerTransaction} batches, so a failed
+ * import keeps the pages of the transactions that were already committed.
+ * <p>
+ * The database log stays on, since it is shared with the wiki edits made while the import runs: the import relies on
+ * batching and on large transactions instead. Imported pages are recorded in the {@code PageChanges} log so that the
+ * next incremental backup includes them. Records with a {@code deleted} marker are skipped.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class PageImporter {
+
+  private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+  private final JDBCClient dbClient;
+  private final String importPageQuery;
+  private final String logImportQuery;
+  private final int batchSize;
+  private final int batchesPerTransaction;
+
+  /**
+   * @param importPageQuery the query that creates or replaces a page, given its name and content
+   * @param logImportQuery  the query that records the import of a page in the changes log, given its name
+   */
+  public PageImporter(JDBCClient dbClient, String importPageQuery, String logImportQuery, int batchSize,
+                      int batchesPerTransaction) {
+    this.dbClient = dbClient;
+    this.importPageQuery = importPageQuery;
+    this.logImportQuery = logImportQuery;
+    this.batchSize = batchSize;
+    this.batchesPerTransaction = batchesPerTransaction;
+  }
+
+  /**
+   * @param input           the stream to import, which should be paused, and is resumed once the import is ready
+   * @param gzip            whether the stream is a gzip archive
+   * @param progressHandler called with the number of {@code pages} imported so far after each commit
+   * @param resultHandler   called with the number of {@code pages} imported and {@code skipped}, the duration in
+   *                        {@code seconds} and the {@code pagesPerSecond} rate
+   */
+  public void importPages(ReadStream<Buffer> input, boolean gzip, Handler<JsonObject> progressHandler,
+                          Handler<AsyncResult<JsonObject>> resultHandler) {
+    long start = System.currentTimeMillis();
+    Future.<SQLConnection>future(dbClient::getConnection).setHandler(conn -> {
+      if (conn.failed()) {
+        resultHandler.handle(Future.failedFuture(conn.cause()));
+        return;
+      }
+      SQLConnection connection = conn.result();
+      Future.<Void>future(promise -> connection.setAutoCommit(false, promise))
+        .compose(v -> new Import(connection, gzip ? new GunzipReadStream(input) : input, start, progressHandler).run())
+        .compose(result -> Future.<Void>future(connection::commit).map(result))
+        .recover(t -> Future.<Void>future(connection::rollback).otherwiseEmpty().compose(v -> Future.failedFuture(t)))
+        .setHandler(ar -> connection.setAutoCommit(true, autoCommit -> {
+          connection.close();
+          if (ar.failed()) {
+            resultHandler.handle(ar);
+            return;
+          }
+          double seconds = (System.currentTimeMillis() - start) / 1000.0;
+          int pages = ar.result().getInteger("pages");
+          resultHandler.handle(Future.succeededFuture(ar.result()
+            .put("seconds", seconds)
+            .put("pagesPerSecond", seconds > 0 ? Math.round(pages / seconds) : pages)));
+        }));
+    });
+  }
+
+  private class Import {
+
+    final SQLConnection connection;
+    final RecordParser lines;
+    final long start;
+    final Handler<JsonObject> progressHandler;
+    final Promise<JsonObject> promise = Promise.promise();
+
+    List<JsonArray> pages = new ArrayList<>(batchSize);
+    List<JsonArray> names = new ArrayList<>(batchSize);
+    int imported;
+    int skipped;
+    int batches;
+
+    Import(SQLConnection connection, ReadStream<Buffer> input, long start, Handler<JsonObject> progressHandler) {
+      this.connection = connection;
+      this.lines = RecordParser.newDelimited("\n", input).maxRecordSize(MAX_RECORD_SIZE);
+      this.start = start;
+      this.progressHandler = progressHandler;
+    }
+
+    Future<JsonObject> run() {
+      lines.exceptionHandler(promise::tryFail);
+      lines.handler(this::record);
+      // The parser only ends once all records have been handled, and it is paused while a batch is written
+      lines.endHandler(v -> flush(flushed -> promise.tryComplete(new JsonObject()
+        .put("pages", imported)
+        .put("skipped", skipped))));
+      lines.resume();
+      return promise.future();
+    }
+
+    void record(Buffer line) {
+      if (line.length() == 0) {
+        return;
+      }
+      JsonObject page;
+      try {
+        page = line.toJsonObject();
+      } catch (RuntimeException e) {
+        lines.pause();
+        promise.tryFail(new IllegalArgumentException("Invalid page record: " + e.getMessage()));
+        return;
+      }
+      String name = page.getString("name");
+      if (page.getBoolean("deleted", false) || name == null) {
+        skipped++;
+        return;
+      }
+      pages.add(new JsonArray().add(name).add(page.getString("content", "")));
+      names.add(new JsonArray().add(name));
+      if (pages.size() >= batchSize) {
+        lines.pause();
+        flush(flushed -> lines.resume());
+      }
+    }
+
+    void flush(Consumer<Void> next) {
+      if (pages.isEmpty()) {
+        next.accept(null);
+        return;
+      }
+      List<JsonArray> batch = pages;
+      List<JsonArray> logged = names;
+      pages = new ArrayList<>(batchSize);
+      names = new ArrayList<>(batchSize);
+      Future.<List<Integer>>future(promise -> connection.batchWithParams(importPageQuery, batch, promise))
+        .compose(v -> Future.<List<Integer>>future(promise -> connection.batchWithParams(logImportQuery, logged, promise)))
+        .compose(v -> {
+          imported += batch.size();
+          if (++batches % batchesPerTransaction != 0) {
+            return Future.<Void>succeededFuture();
+          }
+          return Future.<Void>future(connection::commit).map(committed -> {
+            progressHandler.handle(new JsonObject()
+              .put("pages", imported)
+              .put("elapsed", System.currentTimeMillis() - start));
+            return null;
+          });
+        })
+        .setHandler(ar -> {
+          if (ar.succeeded()) {
+            next.accept(null);
+          } else {
+            promise.tryFail(ar.cause());
+          }
+        });
+    }
+  }
+}
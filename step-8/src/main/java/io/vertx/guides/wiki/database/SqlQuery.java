@@ -22,11 +22,15 @@ package io.vertx.guides.wiki.database;
  */
 enum SqlQuery {
   CREATE_PAGES_TABLE,
+  CREATE_PAGE_CHANGES_TABLE,
   ALL_PAGES,
   GET_PAGE,
   CREATE_PAGE,
   SAVE_PAGE,
   DELETE_PAGE,
   ALL_PAGES_DATA,
-  GET_PAGE_BY_ID
+  GET_PAGE_BY_ID,
+  LOG_PAGE_CHANGE,
+  IMPORT_PAGE,
+  LOG_PAGE_IMPORT
 }
@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.tracing.TracingInterceptor;
+
+import java.util.List;
+
+/**
+ * Ends the span that {@link TracingInterceptor} started for each service call once the wrapped service has replied,
+ * so that the span covers the wait for a pooled connection, the SQL statements and the commit.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class TracingWikiDatabaseService implements WikiDatabaseService {
+
+  private final WikiDatabaseService service;
+
+  TracingWikiDatabaseService(WikiDatabaseService service) {
+    this.service = service;
+  }
+
+  @Override
+  public WikiDatabaseService fetchAllPages(Handler<AsyncResult<JsonArray>> resultHandler) {
+    service.fetchAllPages(TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService fetchPage(String name, Handler<AsyncResult<JsonObject>> resultHandler) {
+    service.fetchPage(name, TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService fetchPageById(int id, Handler<AsyncResult<JsonObject>> resultHandler) {
+    service.fetchPageById(id, TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler) {
+    service.createPage(title, markdown, TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService savePage(int id, String markdown, Handler<AsyncResult<Void>> resultHandler) {
+    service.savePage(id, markdown, TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler) {
+    service.deletePage(id, TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+
+  @Override
+  public WikiDatabaseService fetchAllPagesData(Handler<AsyncResult<List<JsonObject>>> resultHandler) {
+    service.fetchAllPagesData(TracingInterceptor.takeSpan().finishing(resultHandler));
+    return this;
+  }
+}
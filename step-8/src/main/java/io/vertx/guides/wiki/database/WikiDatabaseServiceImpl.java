@@ -17,6 +17,7 @@
 
 package io.vertx.guides.wiki.database;
 
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.vertx.core.AsyncResult;
@@ -28,6 +29,7 @@ import io.vertx.reactivex.CompletableHelper;
 import io.vertx.reactivex.SingleHelper;
 import io.vertx.reactivex.ext.jdbc.JDBCClient;
 import io.vertx.reactivex.ext.sql.SQLClientHelper;
+import io.vertx.reactivex.ext.sql.SQLConnection;
 
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +49,7 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
     // tag::using-connection-helper[]
     SQLClientHelper.usingConnectionSingle(this.dbClient, conn -> conn // <1>
       .rxExecute(sqlQueries.get(SqlQuery.CREATE_PAGES_TABLE)) // <2>
+      .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_PAGE_CHANGES_TABLE)))
       .andThen(Single.just(this)))
       // end::using-connection-helper[]
       .subscribe(SingleHelper.toObserver(readyHandler));
@@ -112,16 +115,18 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
   @Override
   public WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler) {
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), new JsonArray().add(title).add(markdown))
-      .ignoreElement()
+    SQLClientHelper.inTransactionCompletable(dbClient, conn -> conn
+      .rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), new JsonArray().add(title).add(markdown))
+      .flatMapCompletable(result -> logChange(conn, result.getKeys().getInteger(0), PageChange.CREATE)))
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
   }
 
   @Override
   public WikiDatabaseService savePage(int id, String markdown, Handler<AsyncResult<Void>> resultHandler) {
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), new JsonArray().add(markdown).add(id))
-      .ignoreElement()
+    SQLClientHelper.inTransactionCompletable(dbClient, conn -> conn
+      .rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), new JsonArray().add(markdown).add(id))
+      .flatMapCompletable(result -> result.getUpdated() > 0 ? logChange(conn, id, PageChange.SAVE) : Completable.complete()))
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
   }
@@ -129,12 +134,23 @@ class WikiDatabaseServiceImpl implements WikiDatabaseService {
   @Override
   public WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler) {
     JsonArray data = new JsonArray().add(id);
-    dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data)
-      .ignoreElement()
+    SQLClientHelper.inTransactionCompletable(dbClient, conn -> conn
+      .rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data)
+      .flatMapCompletable(result -> result.getUpdated() > 0 ? logChange(conn, id, PageChange.DELETE) : Completable.complete()))
       .subscribe(CompletableHelper.toObserver(resultHandler));
     return this;
   }
 
+  /*
+   * Each write is recorded in the change log within its own transaction, so that incremental backups only need to
+   * look at the pages changed since the previous one.
+   */
+  private Completable logChange(SQLConnection conn, int pageId, PageChange change) {
+    return conn
+      .rxUpdateWithParams(sqlQueries.get(SqlQuery.LOG_PAGE_CHANGE), new JsonArray().add(pageId).add(change.name()))
+      .ignoreElement();
+  }
+
   // tag::rx-handler-to-observer[]
   @Override
   public WikiDatabaseService fetchAllPagesData(Handler<AsyncResult<List<JsonObject>>> resultHandler) { // <1>
@@ -21,7 +21,13 @@ import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.guides.wiki.backup.ImportChannel;
+import io.vertx.guides.wiki.backup.PageImporter;
+import io.vertx.guides.wiki.tracing.Tracer;
+import io.vertx.guides.wiki.tracing.TracingInterceptor;
 import io.vertx.serviceproxy.ServiceBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -39,6 +45,14 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
   public static final String CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE = "wikidb.jdbc.max_pool_size";
   public static final String CONFIG_WIKIDB_SQL_QUERIES_RESOURCE_FILE = "wikidb.sqlqueries.resource.file";
   public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
+  public static final String CONFIG_WIKIDB_IMPORT_QUEUE = "wikidb.import.queue";
+  public static final String CONFIG_WIKIDB_IMPORT_BATCH_SIZE = "wikidb.import.batch.size";
+  public static final String CONFIG_WIKIDB_IMPORT_TRANSACTION_BATCHES = "wikidb.import.transaction.batches";
+  public static final String CONFIG_WIKIDB_IMPORT_IDLE_TIMEOUT = "wikidb.import.idle.timeout.ms";
+
+  public static final String IMPORT_PROGRESS_ADDRESS = "wiki.import.progress";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WikiDatabaseVerticle.class);
 
   @Override
   public void start(Promise<Void> promise) throws Exception {
@@ -53,7 +67,11 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     WikiDatabaseService.create(dbClient, sqlQueries, ready -> {
       if (ready.succeeded()) {
         ServiceBinder binder = new ServiceBinder(vertx);
-        binder.setAddress(CONFIG_WIKIDB_QUEUE).register(WikiDatabaseService.class, ready.result());
+        binder
+          .setAddress(CONFIG_WIKIDB_QUEUE)
+          .addInterceptor(new TracingInterceptor(Tracer.shared(vertx), "WikiDatabaseService"))
+          .register(WikiDatabaseService.class, new TracingWikiDatabaseService(ready.result()));
+        listenForImports(dbClient, sqlQueries);
         promise.complete();
       } else {
         promise.fail(ready.cause());
@@ -61,6 +79,20 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     });
   }
 
+  /*
+   * Imports use the connection pool of the database service, and the HTTP server verticles stream their body here.
+   */
+  private void listenForImports(JDBCClient dbClient, HashMap<SqlQuery, String> sqlQueries) {
+    PageImporter importer = new PageImporter(dbClient, sqlQueries.get(SqlQuery.IMPORT_PAGE),
+      sqlQueries.get(SqlQuery.LOG_PAGE_IMPORT), config().getInteger(CONFIG_WIKIDB_IMPORT_BATCH_SIZE, 500),
+      config().getInteger(CONFIG_WIKIDB_IMPORT_TRANSACTION_BATCHES, 20));
+    ImportChannel.listen(vertx, config().getString(CONFIG_WIKIDB_IMPORT_QUEUE, "wikidb.import.queue"), importer,
+      config().getLong(CONFIG_WIKIDB_IMPORT_IDLE_TIMEOUT, 60_000L), progress -> {
+        LOGGER.info("Imported {} pages", progress.getInteger("pages"));
+        vertx.eventBus().publish(IMPORT_PROGRESS_ADDRESS, progress);
+      });
+  }
+
   /*
    * Note: this uses blocking APIs, but data is small...
    */
@@ -77,9 +109,16 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     Properties queriesProps = new Properties();
     queriesProps.load(queriesInputStream);
     queriesInputStream.close();
+    return sqlQueries(queriesProps);
+  }
 
+  /**
+   * Maps the entries of a queries properties file, in the format of {@code db-queries.properties}, to their queries.
+   */
+  public static HashMap<SqlQuery, String> sqlQueries(Properties queriesProps) {
     HashMap<SqlQuery, String> sqlQueries = new HashMap<>();
     sqlQueries.put(SqlQuery.CREATE_PAGES_TABLE, queriesProps.getProperty("create-pages-table"));
+    sqlQueries.put(SqlQuery.CREATE_PAGE_CHANGES_TABLE, queriesProps.getProperty("create-page-changes-table"));
     sqlQueries.put(SqlQuery.ALL_PAGES, queriesProps.getProperty("all-pages"));
     sqlQueries.put(SqlQuery.GET_PAGE, queriesProps.getProperty("get-page"));
     sqlQueries.put(SqlQuery.CREATE_PAGE, queriesProps.getProperty("create-page"));
@@ -87,6 +126,9 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
     sqlQueries.put(SqlQuery.DELETE_PAGE, queriesProps.getProperty("delete-page"));
     sqlQueries.put(SqlQuery.ALL_PAGES_DATA, queriesProps.getProperty("all-pages-data"));
     sqlQueries.put(SqlQuery.GET_PAGE_BY_ID, queriesProps.getProperty("get-page-by-id"));
+    sqlQueries.put(SqlQuery.LOG_PAGE_CHANGE, queriesProps.getProperty("log-page-change"));
+    sqlQueries.put(SqlQuery.IMPORT_PAGE, queriesProps.getProperty("import-page"));
+    sqlQueries.put(SqlQuery.LOG_PAGE_IMPORT, queriesProps.getProperty("log-page-import"));
     return sqlQueries;
   }
 }
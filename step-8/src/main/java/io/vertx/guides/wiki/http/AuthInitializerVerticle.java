@@ -18,29 +18,78 @@
 package io.vertx.guides.wiki.http;
 
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.AbstractVerticle;
 import io.vertx.reactivex.ext.jdbc.JDBCClient;
 import io.vertx.reactivex.ext.sql.SQLClientHelper;
+import io.vertx.reactivex.ext.sql.SQLConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.vertx.guides.wiki.DatabaseConstants.*;
 
+/**
+ * Creates and fills the authentication tables used by {@code JDBCAuth}.
+ * <p>
+ * Users are keyed by {@code username}, user roles by {@code (username, role)} and role permissions by
+ * {@code (role, perm)}, so that logins and permission checks are index lookups. Tables created by earlier versions
+ * without keys are migrated by copying their distinct rows to keyed tables.
+ * <p>
+ * HSQLDB commits DDL statements implicitly, so a migration cannot be rolled back. Instead it is resumed from the tables
+ * that exist on the next start: a leftover keyed copy is dropped if the legacy table is still there, and renamed if the
+ * legacy table had already been dropped.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
 public class AuthInitializerVerticle extends AbstractVerticle {
 
   private final Logger logger = LoggerFactory.getLogger(AuthInitializerVerticle.class);
 
+  private static final String KEYED_SUFFIX = "_KEYED";
+
+  private static final String SQL_AUTH_TABLES =
+    "select t.table_name, c.constraint_type from information_schema.tables t " +
+      "left join information_schema.table_constraints c on c.table_schema = t.table_schema " +
+      "and c.table_name = t.table_name and c.constraint_type = 'PRIMARY KEY' " +
+      "where t.table_schema = 'PUBLIC' " +
+      "and t.table_name in ('USER', 'USER_KEYED', 'USER_ROLES', 'USER_ROLES_KEYED', 'ROLES_PERMS', 'ROLES_PERMS_KEYED')";
+
+  /*
+   * Statements that copy a legacy table to its keyed version, which then replaces it.
+   */
+  private static final Map<String, List<String>> MIGRATIONS = new LinkedHashMap<>();
+
+  static {
+    MIGRATIONS.put("USER", Arrays.asList(
+      "create table user_keyed (username varchar(255) not null, password varchar(255), password_salt varchar(255), constraint pk_user primary key (username));",
+      "insert into user_keyed select distinct username, password, password_salt from user where username is not null;"
+    ));
+    MIGRATIONS.put("USER_ROLES", Arrays.asList(
+      "create table user_roles_keyed (username varchar(255) not null, role varchar(255) not null, constraint pk_user_roles primary key (username, role));",
+      "insert into user_roles_keyed select distinct username, role from user_roles where username is not null and role is not null;"
+    ));
+    MIGRATIONS.put("ROLES_PERMS", Arrays.asList(
+      "create table roles_perms_keyed (role varchar(255) not null, perm varchar(255) not null, constraint pk_roles_perms primary key (role, perm));",
+      "insert into roles_perms_keyed select distinct role, perm from roles_perms where role is not null and perm is not null;"
+    ));
+  }
+
   @Override
-  public void start() throws Exception {
+  public void start(Promise<Void> promise) throws Exception {
 
     List<String> schemaCreation = Arrays.asList(
-      "create table if not exists user (username varchar(255), password varchar(255), password_salt varchar(255));",
-      "create table if not exists user_roles (username varchar(255), role varchar(255));",
-      "create table if not exists roles_perms (role varchar(255), perm varchar(255));"
+      "create table if not exists user (username varchar(255) not null, password varchar(255), password_salt varchar(255), constraint pk_user primary key (username));",
+      "create table if not exists user_roles (username varchar(255) not null, role varchar(255) not null, constraint pk_user_roles primary key (username, role));",
+      "create table if not exists roles_perms (role varchar(255) not null, perm varchar(255) not null, constraint pk_roles_perms primary key (role, perm));"
     );
 
     /*
@@ -74,7 +123,13 @@ public class AuthInitializerVerticle extends AbstractVerticle {
       .put("max_pool_size", config().getInteger(CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, DEFAULT_JDBC_MAX_POOL_SIZE)));
 
     SQLClientHelper.usingConnectionCompletable(dbClient, connection ->
-      connection.rxBatch(schemaCreation)
+      connection.rxQuery(SQL_AUTH_TABLES)
+        .flatMapCompletable(rs -> {
+          Map<String, Boolean> tables = new HashMap<>();
+          rs.getResults().forEach(row -> tables.put(row.getString(0), row.getString(1) != null));
+          return migrate(connection, tables);
+        })
+        .andThen(connection.rxBatch(schemaCreation))
         .flatMap(rs -> connection.rxQuery("select count(*) from user;"))
         .flatMapCompletable(rs -> {
           if (rs.getResults().get(0).getInteger(0) == 0) {
@@ -87,8 +142,49 @@ public class AuthInitializerVerticle extends AbstractVerticle {
             return Completable.complete();
           }
         })
-    ).subscribe(
-      () -> logger.info("Authentication database prepared"),
-      t -> logger.error("Could not prepare the authentication database", t));
+    ).subscribe(() -> {
+      logger.info("Authentication database prepared");
+      promise.complete();
+    }, t -> {
+      logger.error("Could not prepare the authentication database", t);
+      promise.fail(t);
+    });
+  }
+
+  /**
+   * @param tables the existing authentication tables, mapped to whether they have a primary key
+   */
+  private Completable migrate(SQLConnection connection, Map<String, Boolean> tables) {
+    return Flowable.fromIterable(MIGRATIONS.keySet())
+      .concatMapCompletable(table -> {
+        List<String> statements = migration(table, tables);
+        if (statements.isEmpty()) {
+          return Completable.complete();
+        }
+        logger.info("Migrating table {} to a keyed schema", table);
+        return connection.rxBatch(statements).ignoreElement();
+      });
+  }
+
+  private static List<String> migration(String table, Map<String, Boolean> tables) {
+    String keyed = table + KEYED_SUFFIX;
+    List<String> statements = new ArrayList<>();
+    Boolean tableKeyed = tables.get(table);
+    if (tableKeyed == null) {
+      // Interrupted after the legacy table was dropped: the keyed copy is complete
+      if (tables.containsKey(keyed)) {
+        statements.add("alter table " + keyed + " rename to " + table + ";");
+      }
+      return statements;
+    }
+    if (tables.containsKey(keyed)) {
+      statements.add("drop table " + keyed + ";");
+    }
+    if (!tableKeyed) {
+      statements.addAll(MIGRATIONS.get(table));
+      statements.add("drop table " + table + ";");
+      statements.add("alter table " + keyed + " rename to " + table + ";");
+    }
+    return statements;
   }
 }
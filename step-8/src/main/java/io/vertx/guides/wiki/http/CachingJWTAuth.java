@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.jwt.JWTOptions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link JWTAuth} that remembers the users of the tokens it verified, so that a client sending the same token over
+ * and over does not get it parsed and its signature recomputed on every request.
+ * <p>
+ * Tokens are cached as-is in a bounded LRU once the delegate has accepted them, until their {@code exp} claim if they
+ * have one. Failed verifications are not cached. Since the cache is keyed by the token only, an instance must only be
+ * used with a single set of verification options, such as those of one {@code JWTAuthHandler}.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class CachingJWTAuth implements JWTAuth {
+
+  private final JWTAuth delegate;
+  private final LinkedHashMap<String, VerifiedToken> tokens;
+
+  public CachingJWTAuth(JWTAuth delegate, int maxSize) {
+    this.delegate = delegate;
+    this.tokens = new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  @Override
+  public void authenticate(JsonObject authInfo, Handler<AsyncResult<User>> resultHandler) {
+    String jwt = authInfo.getString("jwt");
+    if (jwt == null) {
+      delegate.authenticate(authInfo, resultHandler);
+      return;
+    }
+    VerifiedToken cached;
+    synchronized (tokens) {
+      cached = tokens.get(jwt);
+    }
+    if (cached != null) {
+      if (cached.expires > System.currentTimeMillis()) {
+        resultHandler.handle(Future.succeededFuture(cached.user));
+        return;
+      }
+      synchronized (tokens) {
+        tokens.remove(jwt);
+      }
+    }
+    delegate.authenticate(authInfo, ar -> {
+      if (ar.succeeded()) {
+        Long exp = ar.result().principal().getLong("exp");
+        VerifiedToken verified = new VerifiedToken(ar.result(), exp != null ? exp * 1000 : Long.MAX_VALUE);
+        synchronized (tokens) {
+          tokens.put(jwt, verified);
+        }
+      }
+      resultHandler.handle(ar);
+    });
+  }
+
+  @Override
+  public String generateToken(JsonObject claims, JWTOptions options) {
+    return delegate.generateToken(claims, options);
+  }
+
+  private static final class VerifiedToken {
+
+    final User user;
+    final long expires;
+
+    VerifiedToken(User user, long expires) {
+      this.user = user;
+      this.expires = expires;
+    }
+  }
+}
@@ -22,6 +22,8 @@ import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -29,31 +31,40 @@ import io.vertx.core.net.JksOptions;
 import io.vertx.ext.auth.PubSecKeyOptions;
 import io.vertx.ext.auth.jwt.JWTAuthOptions;
 import io.vertx.ext.jwt.JWTOptions;
-import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.guides.wiki.Readiness;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
+import io.vertx.guides.wiki.auth.AuthoritiesInvalidation;
+import io.vertx.guides.wiki.auth.EventBusAuthProvider;
+import io.vertx.guides.wiki.auth.reactivex.AuthService;
+import io.vertx.guides.wiki.backup.BackupVerticle;
+import io.vertx.guides.wiki.backup.ImportChannel;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.tracing.Span;
+import io.vertx.guides.wiki.tracing.Tracer;
+import io.vertx.guides.wiki.tracing.TracingHandler;
 // tag::rx-imports[]
 import io.vertx.guides.wiki.database.reactivex.WikiDatabaseService;
 import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.ext.auth.AuthProvider;
 import io.vertx.reactivex.ext.auth.User;
-import io.vertx.reactivex.ext.auth.jdbc.JDBCAuth;
 import io.vertx.reactivex.ext.auth.jwt.JWTAuth;
-import io.vertx.reactivex.ext.jdbc.JDBCClient;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.RoutingContext;
-import io.vertx.reactivex.ext.web.client.WebClient;
-import io.vertx.reactivex.ext.web.codec.BodyCodec;
 import io.vertx.reactivex.ext.web.handler.*;
 import io.vertx.reactivex.ext.web.sstore.LocalSessionStore;
+import io.vertx.reactivex.ext.web.sstore.SessionStore;
 import io.vertx.reactivex.ext.web.templ.freemarker.FreeMarkerTemplateEngine;
 // end::rx-imports[]
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.function.Function;
 import java.util.Date;
 
-import static io.vertx.guides.wiki.DatabaseConstants.*;
-
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
  */
@@ -61,6 +72,16 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   public static final String CONFIG_HTTP_SERVER_PORT = "http.server.port";
   public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
+  public static final String CONFIG_AUTH_PERMISSIONS_TTL = "auth.permissions.ttl.ms";
+  public static final String CONFIG_HTTP_JWT_CACHE_SIZE = "http.jwt.cache.size";
+  public static final String CONFIG_HTTP_SESSION_STORE = "http.session.store";
+  public static final String CONFIG_HTTP_SESSION_PARTITIONS = "http.session.partitions";
+  public static final String CONFIG_HTTP_SESSION_SWEEP_INTERVAL = "http.session.sweep.ms";
+  public static final String CONFIG_HTTP_BACKUP_TIMEOUT = "http.backup.timeout.ms";
+  public static final String CONFIG_HTTP_AWAIT_READINESS = "http.await.readiness";
+  public static final String CONFIG_HTTP_IMPORT_TIMEOUT = "http.import.timeout.ms";
+
+  private static final String IMPORT_PATH = "/api/import";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HttpServerVerticle.class);
 
@@ -68,7 +89,17 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private WikiDatabaseService dbService;
 
-  private WebClient webClient;
+  private String wikiDbQueue;
+
+  private String backupQueue;
+
+  private PermissionCache permissionCache;
+
+  private String importQueue;
+
+  private SessionStore sessionStore;
+
+  private boolean ready;
 
   private static final String EMPTY_PAGE_MARKDOWN =
     "# A new page\n" +
@@ -82,10 +113,11 @@ public class HttpServerVerticle extends AbstractVerticle {
     String wikiDbQueue = config().getString(CONFIG_WIKIDB_QUEUE, "wikidb.queue");
     dbService = io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx.getDelegate(), wikiDbQueue);
     // end::rx-vertx-delegate[]
+    this.wikiDbQueue = wikiDbQueue;
 
-    webClient = WebClient.create(vertx, new WebClientOptions()
-      .setSsl(true)
-      .setUserAgent("vert-x3"));
+    backupQueue = config().getString(BackupVerticle.CONFIG_BACKUP_QUEUE, "backup.queue");
+
+    importQueue = config().getString(WikiDatabaseVerticle.CONFIG_WIKIDB_IMPORT_QUEUE, "wikidb.import.queue");
 
     HttpServer server = vertx.createHttpServer(new HttpServerOptions()
       .setSsl(true)
@@ -93,17 +125,52 @@ public class HttpServerVerticle extends AbstractVerticle {
         .setPath("server-keystore.jks")
         .setPassword("secret")));
 
-    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
-      .put("url", config().getString(CONFIG_WIKIDB_JDBC_URL, DEFAULT_WIKIDB_JDBC_URL))
-      .put("driver_class", config().getString(CONFIG_WIKIDB_JDBC_DRIVER_CLASS, DEFAULT_WIKIDB_JDBC_DRIVER_CLASS))
-      .put("max_pool_size", config().getInteger(CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, DEFAULT_JDBC_MAX_POOL_SIZE)));
+    String authQueue = config().getString(AuthServiceVerticle.CONFIG_AUTH_QUEUE, "auth.queue");
+    AuthService authService = io.vertx.guides.wiki.auth.AuthService.createProxy(vertx.getDelegate(), authQueue);
+    AuthProvider auth = AuthProvider.newInstance(EventBusAuthProvider.create(vertx.getDelegate(), authQueue));
+    permissionCache = new PermissionCache(vertx, authService::rxAuthorities,
+      config().getLong(CONFIG_AUTH_PERMISSIONS_TTL, 60_000L));
 
-    JDBCAuth auth = JDBCAuth.create(vertx, dbClient);
+    if (config().getBoolean(CONFIG_HTTP_AWAIT_READINESS, false)) {
+      Readiness.whenReady(vertx.getDelegate(), v -> ready = true);
+    } else {
+      ready = true;
+    }
 
     Router router = Router.router(vertx);
 
-    router.route().handler(BodyHandler.create());
-    router.route().handler(SessionHandler.create(LocalSessionStore.create(vertx)).setAuthProvider(auth));
+    router.route().handler(TracingHandler.create(Tracer.shared(vertx.getDelegate())));
+
+    // Until the database and the authentication schema are ready, only the login form can be served
+    router.route().handler(context -> {
+      if (ready || "/login".equals(context.request().path())) {
+        context.next();
+      } else {
+        context.response()
+          .setStatusCode(503)
+          .putHeader("Retry-After", "1")
+          .end();
+      }
+    });
+    // Imports are streamed: their body must not be buffered, nor lost while the token is being verified
+    router.post(IMPORT_PATH).handler(context -> {
+      context.request().pause();
+      context.next();
+    });
+    BodyHandler bodyHandler = BodyHandler.create();
+    router.route().handler(context -> {
+      if (IMPORT_PATH.equals(context.request().path())) {
+        context.next();
+      } else {
+        bodyHandler.handle(context);
+      }
+    });
+    // Only the HTML pages and forms use sessions: API clients authenticate with JWT bearer tokens
+    sessionStore = sessionStore();
+    SessionHandler sessionHandler = SessionHandler.create(sessionStore).setAuthProvider(auth);
+    for (String path : Arrays.asList("/", "/wiki/*", "/action/*", "/login-auth", "/logout")) {
+      router.route(path).handler(sessionHandler);
+    }
 
     AuthHandler authHandler = RedirectAuthHandler.create(auth, "/login");
     router.route("/").handler(authHandler);
@@ -115,12 +182,14 @@ public class HttpServerVerticle extends AbstractVerticle {
     router.post("/action/save").handler(this::pageUpdateHandler);
     router.post("/action/create").handler(this::pageCreateHandler);
     router.get("/action/backup").handler(this::backupHandler);
+    router.post("/action/permissions").handler(this::permissionsInvalidationHandler);
     router.post("/action/delete").handler(this::pageDeletionHandler);
 
     router.get("/login").handler(this::loginHandler);
     router.post("/login-auth").handler(FormLoginHandler.create(auth));
 
     router.get("/logout").handler(context -> {
+      PermissionCache.forget(context.session());
       context.clearUser();
       context.response()
         .setStatusCode(302)
@@ -137,35 +206,33 @@ public class HttpServerVerticle extends AbstractVerticle {
     Router apiRouter = Router.router(vertx);
     templateEngine = FreeMarkerTemplateEngine.create(vertx);
 
-    apiRouter.route().handler(JWTAuthHandler.create(jwtAuth, "/api/token"));
+    JWTAuth verifiedTokens = JWTAuth.newInstance(
+      new CachingJWTAuth(jwtAuth.getDelegate(), config().getInteger(CONFIG_HTTP_JWT_CACHE_SIZE, 10_000)));
+    apiRouter.route().handler(JWTAuthHandler.create(verifiedTokens, "/api/token"));
 
     apiRouter.get("/token").handler(context -> {
 
+      String username = context.request().getHeader("login");
       JsonObject creds = new JsonObject()
-        .put("username", context.request().getHeader("login"))
+        .put("username", username)
         .put("password", context.request().getHeader("password"));
 
       // tag::rx-concurrent-composition[]
 
-      auth.rxAuthenticate(creds).flatMap(user -> {
-        Single<Boolean> create = user.rxIsAuthorized("create"); // <1>
-        Single<Boolean> delete = user.rxIsAuthorized("delete");
-        Single<Boolean> update = user.rxIsAuthorized("update");
-
-        return Single.zip(create, delete, update, (canCreate, canDelete, canUpdate) -> { // <2>
-          return jwtAuth.generateToken(
-            new JsonObject()
-              .put("username", context.request().getHeader("login"))
-              .put("canCreate", canCreate)
-              .put("canDelete", canDelete)
-              .put("canUpdate", canUpdate),
-            new JWTOptions()
-              .setSubject("Wiki API")
-              .setIssuer("Vert.x"));
-        });
-      }).subscribe(token -> {
-        context.response().putHeader("Content-Type", "text/plain").end(token);
-      }, t -> context.fail(401));
+      auth.rxAuthenticate(creds) // <1>
+        .flatMap(user -> authService.rxAuthorities(username)) // <2>
+        .map(granted -> jwtAuth.generateToken( // <3>
+          new JsonObject()
+            .put("username", username)
+            .put("canCreate", granted.containsKey("create"))
+            .put("canDelete", granted.containsKey("delete"))
+            .put("canUpdate", granted.containsKey("update")),
+          new JWTOptions()
+            .setSubject("Wiki API")
+            .setIssuer("Vert.x")))
+        .subscribe(token -> {
+          context.response().putHeader("Content-Type", "text/plain").end(token);
+        }, t -> context.fail(401));
 
       // end::rx-concurrent-composition[]
 
@@ -173,8 +240,9 @@ public class HttpServerVerticle extends AbstractVerticle {
 
     apiRouter.get("/pages").handler(this::apiRoot);
     apiRouter.get("/pages/:id").handler(this::apiGetPage);
-    apiRouter.post().handler(BodyHandler.create());
+    apiRouter.post("/pages").handler(BodyHandler.create());
     apiRouter.post("/pages").handler(this::apiCreatePage);
+    apiRouter.post("/import").handler(this::apiImport);
     apiRouter.put().handler(BodyHandler.create());
     apiRouter.put("/pages/:id").handler(this::apiUpdatePage);
     apiRouter.delete("/pages/:id").handler(this::apiDeletePage);
@@ -193,15 +261,31 @@ public class HttpServerVerticle extends AbstractVerticle {
       });
   }
 
+  @Override
+  public void stop() {
+    if (sessionStore != null) {
+      sessionStore.close();
+    }
+  }
+
+  private SessionStore sessionStore() {
+    if ("partitioned".equals(config().getString(CONFIG_HTTP_SESSION_STORE, "local"))) {
+      return SessionStore.newInstance(PartitionedSessionStore.create(vertx.getDelegate(),
+        config().getInteger(CONFIG_HTTP_SESSION_PARTITIONS, PartitionedSessionStore.DEFAULT_PARTITIONS),
+        config().getLong(CONFIG_HTTP_SESSION_SWEEP_INTERVAL, PartitionedSessionStore.DEFAULT_SWEEP_INTERVAL)));
+    }
+    return LocalSessionStore.create(vertx);
+  }
+
   private Completable checkAuthorised(RoutingContext context, String authority) {
-    return context.user().rxIsAuthorized(authority)
+    return traced(context, "authorization " + authority, permissionCache.isAuthorized(context.session(), context.user(), authority))
       .flatMapCompletable(authorized -> authorized ? Completable.complete() : Completable.error(new UnauthorizedThrowable(authority)));
   }
 
   private void apiDeletePage(RoutingContext context) {
     if (context.user().principal().getBoolean("canDelete", false)) {
       int id = Integer.valueOf(context.request().getParam("id"));
-      dbService.rxDeletePage(id)
+      dbUpdate(context, "deletePage", db -> db.rxDeletePage(id))
         .subscribe(() -> apiResponse(context, 200, null, null), t -> apiFailure(context, t));
     } else {
       context.fail(401);
@@ -215,7 +299,7 @@ public class HttpServerVerticle extends AbstractVerticle {
       if (!validateJsonPageDocument(context, page, "markdown")) {
         return;
       }
-      dbService.rxSavePage(id, page.getString("markdown"))
+      dbUpdate(context, "savePage", db -> db.rxSavePage(id, page.getString("markdown")))
         .subscribe(() -> apiResponse(context, 200, null, null), t -> apiFailure(context, t));
     } else {
       context.fail(401);
@@ -224,7 +308,9 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private boolean validateJsonPageDocument(RoutingContext context, JsonObject page, String... expectedKeys) {
     if (!Arrays.stream(expectedKeys).allMatch(page::containsKey)) {
-      LOGGER.error("Bad page creation JSON payload: " + page.encodePrettily() + " from " + context.request().remoteAddress());
+      if (LOGGER.isWarnEnabled()) {
+        LOGGER.warn("Bad page JSON payload: {} from {}", page.encode(), context.request().remoteAddress());
+      }
       context.response().setStatusCode(400);
       context.response().putHeader("Content-Type", "application/json");
       context.response().end(new JsonObject()
@@ -241,16 +327,38 @@ public class HttpServerVerticle extends AbstractVerticle {
       if (!validateJsonPageDocument(context, page, "name", "markdown")) {
         return;
       }
-      dbService.rxCreatePage(page.getString("name"), page.getString("markdown"))
+      dbUpdate(context, "createPage", db -> db.rxCreatePage(page.getString("name"), page.getString("markdown")))
         .subscribe(() -> apiResponse(context, 201, null, null), t -> apiFailure(context, t));
     } else {
       context.fail(401);
     }
   }
 
+  private void apiImport(RoutingContext context) {
+    JsonObject principal = context.user().principal();
+    if (!principal.getBoolean("canCreate", false) || !principal.getBoolean("canUpdate", false)) {
+      context.fail(401);
+      return;
+    }
+    boolean gzip = "application/gzip".equals(context.request().getHeader("Content-Type"));
+    ImportChannel.send(vertx.getDelegate(), importQueue, gzip, context.request().getDelegate(),
+      config().getLong(CONFIG_HTTP_IMPORT_TIMEOUT, 300_000L), ar -> {
+        if (ar.succeeded()) {
+          LOGGER.info("Imported {} pages in {}s ({} pages/s)", ar.result().getInteger("pages"),
+            ar.result().getDouble("seconds"), ar.result().getLong("pagesPerSecond"));
+          apiResponse(context, 200, "import", ar.result());
+        } else if (ar.cause() instanceof ReplyException
+          && ((ReplyException) ar.cause()).failureCode() == ImportChannel.IMPORT_IN_PROGRESS) {
+          apiFailure(context, 409, ar.cause().getMessage());
+        } else {
+          apiFailure(context, ar.cause());
+        }
+      });
+  }
+
   private void apiGetPage(RoutingContext context) {
     int id = Integer.valueOf(context.request().getParam("id"));
-    dbService.rxFetchPageById(id)
+    dbCall(context, "fetchPageById", db -> db.rxFetchPageById(id))
       .subscribe(dbObject -> {
         if (dbObject.getBoolean("found")) {
           JsonObject payload = new JsonObject()
@@ -266,7 +374,7 @@ public class HttpServerVerticle extends AbstractVerticle {
   }
 
   private void apiRoot(RoutingContext context) {
-    dbService.rxFetchAllPagesData()
+    dbCall(context, "fetchAllPagesData", WikiDatabaseService::rxFetchAllPagesData)
       .flatMapPublisher(Flowable::fromIterable)
       .map(obj -> new JsonObject()
         .put("id", obj.getInteger("ID"))
@@ -296,16 +404,17 @@ public class HttpServerVerticle extends AbstractVerticle {
   }
 
   private void indexHandler(RoutingContext context) {
-    context.user().rxIsAuthorized("create")
-      .flatMap(canCreatePage -> {
-        context.put("canCreatePage", canCreatePage);
-        return dbService.rxFetchAllPages();
+    traced(context, "authorities", permissionCache.authorities(context.session(), context.user()))
+      .flatMap(authorities -> {
+        context.put("canCreatePage", authorities.containsKey("create"));
+        context.put("canInvalidatePermissions", authorities.containsKey("role:admin"));
+        return dbCall(context, "fetchAllPages", WikiDatabaseService::rxFetchAllPages);
       })
       .flatMap(result -> {
         context.put("title", "Wiki home");
         context.put("pages", result.getList());
         context.put("username", context.user().principal().getString("username"));
-        return templateEngine.rxRender(context.data(), "templates/index.ftl");
+        return render(context, "templates/index.ftl");
       })
       .subscribe(markup -> {
         context.response().putHeader("Content-Type", "text/html");
@@ -315,16 +424,13 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private void pageRenderingHandler(RoutingContext context) {
     User user = context.user();
-    user.rxIsAuthorized("update")
-      .flatMap(canSavePage -> {
-        context.put("canSavePage", canSavePage);
-        return user.rxIsAuthorized("delete");
-      })
-      .flatMap(canDeletePage -> {
-        context.put("canDeletePage", canDeletePage);
+    traced(context, "authorities", permissionCache.authorities(context.session(), user))
+      .flatMap(authorities -> {
+        context.put("canSavePage", authorities.containsKey("update"));
+        context.put("canDeletePage", authorities.containsKey("delete"));
         String requestedPage = context.request().getParam("page");
         context.put("title", requestedPage);
-        return dbService.rxFetchPage(requestedPage);
+        return dbCall(context, "fetchPage", db -> db.rxFetchPage(requestedPage));
       })
       .flatMap(payLoad -> {
         boolean found = payLoad.getBoolean("found");
@@ -335,7 +441,7 @@ public class HttpServerVerticle extends AbstractVerticle {
         context.put("content", Processor.process(rawContent));
         context.put("timestamp", new Date().toString());
         context.put("username", user.principal().getString("username"));
-        return templateEngine.rxRender(context.data(), "templates/page.ftl");
+        return render(context, "templates/page.ftl");
       })
       .subscribe(
         markup -> {
@@ -347,7 +453,7 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private void loginHandler(RoutingContext context) {
     context.put("title", "Login");
-    templateEngine.rxRender(context.data(), "templates/login.ftl")
+    render(context, "templates/login.ftl")
       .subscribe(markup -> {
         context.response().putHeader("Content-Type", "text/html");
         context.response().end(markup);
@@ -359,7 +465,9 @@ public class HttpServerVerticle extends AbstractVerticle {
     boolean pageCreation = "yes".equals(context.request().getParam("newPage"));
     String markdown = context.request().getParam("markdown");
     checkAuthorised(context, pageCreation ? "create" : "update")
-      .andThen(pageCreation ? dbService.rxCreatePage(title, markdown) : dbService.rxSavePage(Integer.valueOf(context.request().getParam("id")), markdown))
+      .andThen(pageCreation ?
+        dbUpdate(context, "createPage", db -> db.rxCreatePage(title, markdown)) :
+        dbUpdate(context, "savePage", db -> db.rxSavePage(Integer.valueOf(context.request().getParam("id")), markdown)))
       .subscribe(() -> {
         context.response().setStatusCode(303);
         context.response().putHeader("Location", "/wiki/" + title);
@@ -380,7 +488,7 @@ public class HttpServerVerticle extends AbstractVerticle {
 
   private void pageDeletionHandler(RoutingContext context) {
     checkAuthorised(context, "delete")
-      .andThen(dbService.rxDeletePage(Integer.valueOf(context.request().getParam("id"))))
+      .andThen(dbUpdate(context, "deletePage", db -> db.rxDeletePage(Integer.valueOf(context.request().getParam("id")))))
       .subscribe(() -> {
         context.response().setStatusCode(303);
         context.response().putHeader("Location", "/");
@@ -389,49 +497,62 @@ public class HttpServerVerticle extends AbstractVerticle {
   }
 
   private void backupHandler(RoutingContext context) {
+    DeliveryOptions options = new DeliveryOptions()
+      .setSendTimeout(config().getLong(CONFIG_HTTP_BACKUP_TIMEOUT, 300_000L));
     checkAuthorised(context, "role:writer")
-      .andThen(dbService.rxFetchAllPagesData())
-      .map(pages -> {
-        JsonArray filesObject = new JsonArray();
-        JsonObject payload = new JsonObject()
-          .put("files", filesObject)
-          .put("language", "plaintext")
-          .put("title", "vertx-wiki-backup")
-          .put("public", true);
-        pages.forEach(page -> {
-          JsonObject fileObject = new JsonObject();
-          fileObject.put("name", page.getString("NAME"));
-          fileObject.put("content", page.getString("CONTENT"));
-          filesObject.add(fileObject);
-        });
-        return payload;
-      })
-      .flatMap(body -> webClient
-        .post(443, "snippets.glot.io", "/snippets")
-        .putHeader("User-Agent", "vert-x3")
-        .putHeader("Content-Type", "application/json")
-        .as(BodyCodec.jsonObject())
-        .rxSendJsonObject(body))
-      .subscribe(response -> {
-        if (response.statusCode() == 200) {
-          String url = "https://glot.io/snippets/" + response.body().getString("id");
-          context.put("backup_gist_url", url);
-          indexHandler(context);
+      .andThen(vertx.eventBus().<JsonObject>rxRequest(backupQueue, new JsonObject(), options))
+      .subscribe(reply -> {
+        JsonObject backup = reply.body();
+        // The server-side path of the archive is not shown to users
+        context.put("backup_name", Paths.get(backup.getString("file")).getFileName().toString());
+        context.put("backup_url", backup.getString("url"));
+        indexHandler(context);
+      }, t -> {
+        if (t instanceof ReplyException && ((ReplyException) t).failureCode() == BackupVerticle.BACKUP_IN_PROGRESS) {
+          context.fail(409);
         } else {
-          StringBuilder message = new StringBuilder()
-            .append("Could not backup the wiki: ")
-            .append(response.statusMessage());
-          JsonObject body = response.body();
-          if (body != null) {
-            message.append(System.getProperty("line.separator"))
-              .append(body.encodePrettily());
-          }
-          LOGGER.error(message.toString());
-          context.fail(502);
+          onError(context, t);
         }
+      });
+  }
+
+  private void permissionsInvalidationHandler(RoutingContext context) {
+    String username = context.request().getParam("username");
+    checkAuthorised(context, "role:admin")
+      .subscribe(() -> {
+        AuthoritiesInvalidation.publish(vertx.getDelegate(), username == null || username.isEmpty() ? null : username);
+        context.response().setStatusCode(303);
+        context.response().putHeader("Location", "/");
+        context.response().end();
       }, t -> onError(context, t));
   }
 
+  private <T> Single<T> traced(RoutingContext context, String name, Single<T> operation) {
+    return TracingHandler.span(context).traceSingle(name, span -> operation);
+  }
+
+  private Single<Buffer> render(RoutingContext context, String template) {
+    return traced(context, "freemarker " + template, templateEngine.rxRender(context.data(), template));
+  }
+
+  /*
+   * Traced calls carry their span to the database service in the delivery options of a dedicated proxy.
+   */
+  private WikiDatabaseService dbService(Span span) {
+    if (!span.isSampled()) {
+      return dbService;
+    }
+    return io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx.getDelegate(), wikiDbQueue, span.deliveryOptions());
+  }
+
+  private <T> Single<T> dbCall(RoutingContext context, String action, Function<WikiDatabaseService, Single<T>> call) {
+    return TracingHandler.span(context).traceSingle(wikiDbQueue + " " + action, span -> call.apply(dbService(span)));
+  }
+
+  private Completable dbUpdate(RoutingContext context, String action, Function<WikiDatabaseService, Completable> call) {
+    return TracingHandler.span(context).traceCompletable(wikiDbQueue + " " + action, span -> call.apply(dbService(span)));
+  }
+
   private void onError(RoutingContext context, Throwable t) {
     if (t instanceof HttpServerVerticle.UnauthorizedThrowable) {
       context.fail(403);
@@ -0,0 +1,342 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.shareddata.Counter;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.auth.PRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.AbstractSession;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A session store spread over several Vert.x shared-data async maps, which are cluster-wide when Vert.x is clustered,
+ * so that any node and any {@code HttpServerVerticle} instance can serve any session.
+ * <p>
+ * Sessions are assigned to partitions by the hash of their id. Entries are stored without a TTL: instead of one expiry
+ * timer per session, a periodic sweep scans one partition per tick and removes its expired sessions in a batch.
+ * Expired sessions that have not been swept yet are never returned. Each partition is swept by a single node per round
+ * of {@code partitions} ticks: the nodes claim it with a compare-and-set on a shared counter before copying its entries.
+ * <p>
+ * {@link #create(Vertx, int, long)} returns one store per Vert.x instance, so that a node runs a single sweep whatever
+ * the number of verticles using it. Each of them must {@link #close()} the store when it stops.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class PartitionedSessionStore implements SessionStore, Shareable {
+
+  public static final String DEFAULT_MAP_NAME = "wiki.sessions";
+  public static final int DEFAULT_PARTITIONS = 16;
+  public static final long DEFAULT_SWEEP_INTERVAL = 30_000L;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedSessionStore.class);
+
+  private static final String SHARED_MAP = "wiki.session-stores";
+  private static final long RETRY_TIMEOUT = 5000L;
+
+  private Vertx vertx;
+  private String mapName;
+  private int partitions;
+  private long sweepInterval;
+  private PRNG random;
+  private int nextSweep;
+  private final List<Context> users = new ArrayList<>();
+  private long sweepTimer = -1L;
+  private Context sweepContext;
+
+  /**
+   * @return the store shared by all verticles of this Vert.x instance; the settings of the first caller are used
+   */
+  public static synchronized PartitionedSessionStore create(Vertx vertx, int partitions, long sweepInterval) {
+    LocalMap<String, PartitionedSessionStore> stores = vertx.sharedData().getLocalMap(SHARED_MAP);
+    PartitionedSessionStore store = stores.get(DEFAULT_MAP_NAME);
+    if (store != null) {
+      store.acquire();
+      return store;
+    }
+    store = new PartitionedSessionStore();
+    store.init(vertx, new JsonObject()
+      .put("mapName", DEFAULT_MAP_NAME)
+      .put("partitions", partitions)
+      .put("sweepInterval", sweepInterval));
+    stores.put(DEFAULT_MAP_NAME, store);
+    return store;
+  }
+
+  /**
+   * Reads the {@code mapName}, {@code partitions} and {@code sweepInterval} options, and starts sweeping.
+   */
+  @Override
+  public SessionStore init(Vertx vertx, JsonObject options) {
+    this.vertx = vertx;
+    this.mapName = options.getString("mapName", DEFAULT_MAP_NAME);
+    this.partitions = options.getInteger("partitions", DEFAULT_PARTITIONS);
+    this.sweepInterval = options.getLong("sweepInterval", DEFAULT_SWEEP_INTERVAL);
+    this.random = new PRNG(vertx);
+    this.nextSweep = (int) (Math.random() * partitions);
+    acquire();
+    return this;
+  }
+
+  @Override
+  public long retryTimeout() {
+    return RETRY_TIMEOUT;
+  }
+
+  @Override
+  public Session createSession(long timeout) {
+    return new SharedDataSessionImpl(random, timeout, DEFAULT_SESSIONID_LENGTH);
+  }
+
+  @Override
+  public Session createSession(long timeout, int length) {
+    return new SharedDataSessionImpl(random, timeout, length);
+  }
+
+  @Override
+  public void get(String id, Handler<AsyncResult<Session>> resultHandler) {
+    partition(id, ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.failedFuture(ar.cause()));
+        return;
+      }
+      ar.result().get(id, get -> {
+        if (get.failed()) {
+          resultHandler.handle(Future.failedFuture(get.cause()));
+          return;
+        }
+        AbstractSession session = (AbstractSession) get.result();
+        if (session == null || expired(session, System.currentTimeMillis())) {
+          resultHandler.handle(Future.succeededFuture());
+          return;
+        }
+        session.setPRNG(random);
+        resultHandler.handle(Future.succeededFuture(session));
+      });
+    });
+  }
+
+  @Override
+  public void delete(String id, Handler<AsyncResult<Void>> resultHandler) {
+    partition(id, ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.failedFuture(ar.cause()));
+        return;
+      }
+      ar.result().remove(id, remove -> resultHandler.handle(remove.mapEmpty()));
+    });
+  }
+
+  @Override
+  public void put(Session session, Handler<AsyncResult<Void>> resultHandler) {
+    AbstractSession newSession = (AbstractSession) session;
+    partition(session.id(), ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.failedFuture(ar.cause()));
+        return;
+      }
+      AsyncMap<String, Session> map = ar.result();
+      map.get(session.id(), get -> {
+        if (get.failed()) {
+          resultHandler.handle(Future.failedFuture(get.cause()));
+          return;
+        }
+        AbstractSession oldSession = (AbstractSession) get.result();
+        if (oldSession != null && oldSession != newSession && oldSession.version() != newSession.version()) {
+          resultHandler.handle(Future.failedFuture("Session version mismatch"));
+          return;
+        }
+        newSession.incrementVersion();
+        map.put(session.id(), session, resultHandler);
+      });
+    });
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> resultHandler) {
+    forEachPartition(map -> {
+      Promise<Void> promise = Promise.promise();
+      map.clear(promise);
+      return promise.future();
+    }, ar -> resultHandler.handle(ar.mapEmpty()));
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    forEachPartition(map -> {
+      Promise<Integer> promise = Promise.promise();
+      map.size(promise);
+      return promise.future();
+    }, ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.failedFuture(ar.cause()));
+        return;
+      }
+      int size = 0;
+      for (int i = 0; i < partitions; i++) {
+        size += ar.result().<Integer>resultAt(i);
+      }
+      resultHandler.handle(Future.succeededFuture(size));
+    });
+  }
+
+  @Override
+  public void close() {
+    synchronized (PartitionedSessionStore.class) {
+      if (release()) {
+        LocalMap<String, PartitionedSessionStore> stores = vertx.sharedData().getLocalMap(SHARED_MAP);
+        stores.removeIfPresent(mapName, this);
+        random.close();
+      }
+    }
+  }
+
+  private synchronized void acquire() {
+    users.add(vertx.getOrCreateContext());
+    if (sweepContext == null) {
+      sweepOn(users.get(0));
+    }
+  }
+
+  /*
+   * The sweep timer belongs to the context of one of the users of the store. When that user releases the store, the
+   * timer is cancelled and started again on the context of another user, so that get and put never have to check it.
+   */
+  private synchronized void sweepOn(Context context) {
+    sweepContext = context;
+    context.runOnContext(v -> {
+      synchronized (this) {
+        if (sweepContext == context && sweepTimer < 0) {
+          sweepTimer = vertx.setPeriodic(sweepInterval, id -> sweep());
+        }
+      }
+    });
+  }
+
+  /**
+   * @return whether this was the last user of the store
+   */
+  private synchronized boolean release() {
+    if (!users.remove(Vertx.currentContext())) {
+      users.remove(users.size() - 1);
+    }
+    if (!users.contains(sweepContext)) {
+      if (sweepTimer >= 0) {
+        vertx.cancelTimer(sweepTimer);
+        sweepTimer = -1L;
+      }
+      sweepContext = null;
+      if (!users.isEmpty()) {
+        sweepOn(users.get(0));
+      }
+    }
+    return users.isEmpty();
+  }
+
+  /*
+   * A round is the time it takes a node to visit all partitions. The counter of a partition holds the last round in
+   * which it was swept, so the first node that visits it in a round sweeps it and the others skip it.
+   */
+  private void sweep() {
+    int index = nextSweep;
+    nextSweep = (nextSweep + 1) % partitions;
+    long round = System.currentTimeMillis() / (sweepInterval * partitions);
+    vertx.sharedData().getCounter(mapName + ".sweep." + index, ar -> {
+      if (ar.failed()) {
+        LOGGER.warn("Could not claim session partition {}", index, ar.cause());
+        return;
+      }
+      Counter counter = ar.result();
+      counter.get(last -> {
+        if (last.failed()) {
+          LOGGER.warn("Could not claim session partition {}", index, last.cause());
+        } else if (last.result() < round) {
+          counter.compareAndSet(last.result(), round, claimed -> {
+            if (claimed.succeeded() && claimed.result()) {
+              sweep(index);
+            }
+          });
+        }
+      });
+    });
+  }
+
+  private void sweep(int index) {
+    vertx.sharedData().<String, Session>getAsyncMap(mapName + "." + index, ar -> {
+      if (ar.failed()) {
+        LOGGER.warn("Could not sweep session partition {}", index, ar.cause());
+        return;
+      }
+      AsyncMap<String, Session> map = ar.result();
+      map.entries(entries -> {
+        if (entries.failed()) {
+          LOGGER.warn("Could not sweep session partition {}", index, entries.cause());
+          return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Session> entry : entries.result().entrySet()) {
+          if (expired(entry.getValue(), now)) {
+            // Only removes the session if it has not been used again since the scan
+            map.removeIfPresent(entry.getKey(), entry.getValue(), removed -> {
+              if (removed.failed()) {
+                LOGGER.warn("Could not remove expired session from partition {}", index, removed.cause());
+              }
+            });
+          }
+        }
+      });
+    });
+  }
+
+  private static boolean expired(Session session, long now) {
+    return session.lastAccessed() + session.timeout() < now;
+  }
+
+  private void partition(String id, Handler<AsyncResult<AsyncMap<String, Session>>> handler) {
+    int index = (id.hashCode() & Integer.MAX_VALUE) % partitions;
+    vertx.sharedData().getAsyncMap(mapName + "." + index, handler);
+  }
+
+  private <T> void forEachPartition(java.util.function.Function<AsyncMap<String, Session>, Future<T>> action,
+                                    Handler<AsyncResult<CompositeFuture>> handler) {
+    List<Future<T>> futures = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      Promise<AsyncMap<String, Session>> promise = Promise.promise();
+      vertx.sharedData().getAsyncMap(mapName + "." + i, promise);
+      futures.add(promise.future().compose(action));
+    }
+    CompositeFuture.all(new ArrayList<>(futures)).setHandler(handler);
+  }
+}
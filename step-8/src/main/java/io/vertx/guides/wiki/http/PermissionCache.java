@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.guides.wiki.auth.AuthoritiesInvalidation;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.auth.User;
+import io.vertx.reactivex.ext.web.Session;
+
+import java.util.function.Function;
+
+/**
+ * Caches the roles and permissions of the logged-in user in its session, so that authorization checks are map lookups
+ * instead of one authorization query per check.
+ * <p>
+ * All the authorities of a user are fetched with a single call to the loader on the first check after login. The
+ * cached entry expires after a TTL, and can be invalidated for one user or for everyone with
+ * {@link AuthoritiesInvalidation}, which bumps a generation counter shared by all verticles of the Vert.x instance.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class PermissionCache {
+
+  private static final String SESSION_KEY = "wiki.permissions";
+
+  private final Function<String, Single<JsonObject>> loader;
+  private final LocalMap<String, Long> generations;
+  private final long ttl;
+
+  PermissionCache(Vertx vertx, Function<String, Single<JsonObject>> loader, long ttl) {
+    this.loader = loader;
+    this.generations = AuthoritiesInvalidation.generations(vertx.getDelegate());
+    this.ttl = ttl;
+  }
+
+  static void forget(Session session) {
+    if (session != null) {
+      session.remove(SESSION_KEY);
+    }
+  }
+
+  Single<Boolean> isAuthorized(Session session, User user, String authority) {
+    return authorities(session, user).map(authorities -> authorities.containsKey(authority));
+  }
+
+  /**
+   * @return the authorities of the user as the keys of a JSON object
+   */
+  Single<JsonObject> authorities(Session session, User user) {
+    String username = user.principal().getString("username");
+    long generation = AuthoritiesInvalidation.generation(generations, username);
+    JsonObject cached = session != null ? session.get(SESSION_KEY) : null;
+    if (cached != null
+      && username.equals(cached.getString("username"))
+      && cached.getLong("generation") == generation
+      && cached.getLong("expires") > System.currentTimeMillis()) {
+      return Single.just(cached.getJsonObject("authorities"));
+    }
+    return loader.apply(username)
+      .map(authorities -> {
+        if (session != null) {
+          session.put(SESSION_KEY, new JsonObject()
+            .put("username", username)
+            .put("generation", generation)
+            .put("expires", System.currentTimeMillis() + ttl)
+            .put("authorities", authorities));
+        }
+        return authorities;
+      });
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends spans to a file as JSON lines.
+ * <p>
+ * Writes are not awaited, so spans are dropped rather than queued when the write queue of the file is full.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+class FileSpanExporter implements SpanExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileSpanExporter.class);
+
+  private final AsyncFile file;
+  private final AtomicLong dropped = new AtomicLong();
+
+  static void open(Vertx vertx, String path, Handler<AsyncResult<SpanExporter>> resultHandler) {
+    vertx.fileSystem().open(path, new OpenOptions().setCreate(true).setAppend(true), ar ->
+      resultHandler.handle(ar.map(FileSpanExporter::new)));
+  }
+
+  private FileSpanExporter(AsyncFile file) {
+    this.file = file;
+  }
+
+  @Override
+  public void export(JsonObject span) {
+    if (file.writeQueueFull()) {
+      dropped.incrementAndGet();
+      return;
+    }
+    file.write(Buffer.buffer(span.encode()).appendString("\n"));
+  }
+
+  @Override
+  public void close(Handler<AsyncResult<Void>> resultHandler) {
+    long count = dropped.get();
+    if (count > 0) {
+      LOGGER.warn("{} spans were dropped because the trace file could not keep up", count);
+    }
+    file.close(resultHandler);
+  }
+}
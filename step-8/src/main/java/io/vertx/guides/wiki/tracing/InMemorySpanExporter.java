@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Collects spans in memory, to check traces in tests.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+  private final List<JsonObject> spans = new ArrayList<>();
+
+  @Override
+  public synchronized void export(JsonObject span) {
+    spans.add(span);
+  }
+
+  /**
+   * @return a copy of the spans exported so far, in the order they finished
+   */
+  public synchronized List<JsonObject> spans() {
+    return new ArrayList<>(spans);
+  }
+
+  /**
+   * @return the spans of a trace, in the order they finished
+   */
+  public synchronized List<JsonObject> trace(String traceId) {
+    return spans.stream()
+      .filter(span -> traceId.equals(span.getString("traceId")))
+      .collect(Collectors.toList());
+  }
+
+  public synchronized void clear() {
+    spans.clear();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A timed operation of a trace.
+ * <p>
+ * Spans are identified like W3C trace contexts, so that they can cross the event bus in a {@link Tracer#TRACEPARENT}
+ * header. Unsampled spans are never exported, and neither are their children.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class Span {
+
+  private final Tracer tracer;
+  private final String traceId;
+  private final String spanId;
+  private final String parentId;
+  private final String name;
+  private final boolean sampled;
+  private final long startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+  private final long startNanos = System.nanoTime();
+  private final JsonObject attributes = new JsonObject();
+  private boolean finished;
+
+  Span(Tracer tracer, String traceId, String parentId, String name, boolean sampled) {
+    this.tracer = tracer;
+    this.traceId = traceId;
+    this.spanId = Tracer.randomId(8);
+    this.parentId = parentId;
+    this.name = name;
+    this.sampled = sampled;
+  }
+
+  public Span child(String name) {
+    return new Span(tracer, traceId, spanId, name, sampled);
+  }
+
+  public synchronized Span tag(String key, Object value) {
+    attributes.put(key, value);
+    return this;
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  /**
+   * @return the W3C {@code traceparent} value that makes a remote span a child of this one
+   */
+  public String traceparent() {
+    return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+  }
+
+  /**
+   * @return delivery options carrying this span to the consumer of an event-bus message
+   */
+  public DeliveryOptions deliveryOptions() {
+    return new DeliveryOptions().addHeader(Tracer.TRACEPARENT, traceparent());
+  }
+
+  public void finish() {
+    end(null);
+  }
+
+  public void fail(Throwable failure) {
+    end(failure);
+  }
+
+  /**
+   * @return a handler that ends this span with the outcome of an operation before passing it on
+   */
+  public <T> Handler<AsyncResult<T>> finishing(Handler<AsyncResult<T>> handler) {
+    return ar -> {
+      end(ar.cause());
+      handler.handle(ar);
+    };
+  }
+
+  /**
+   * Runs an operation in a child span, which starts on subscription and ends with the operation.
+   */
+  public <T> Single<T> traceSingle(String name, Function<Span, Single<T>> operation) {
+    return Single.defer(() -> {
+      Span child = child(name);
+      return operation.apply(child)
+        .doOnSuccess(result -> child.finish())
+        .doOnError(child::fail);
+    });
+  }
+
+  /**
+   * Runs an operation in a child span, which starts on subscription and ends with the operation.
+   */
+  public Completable traceCompletable(String name, Function<Span, Completable> operation) {
+    return Completable.defer(() -> {
+      Span child = child(name);
+      return operation.apply(child)
+        .doOnComplete(child::finish)
+        .doOnError(child::fail);
+    });
+  }
+
+  private void end(Throwable failure) {
+    long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    JsonObject span;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (!sampled) {
+        return;
+      }
+      if (failure != null) {
+        attributes.put("error", String.valueOf(failure.getMessage()));
+      }
+      span = new JsonObject()
+        .put("traceId", traceId)
+        .put("spanId", spanId)
+        .put("parentId", parentId)
+        .put("name", name)
+        .put("start", startMicros)
+        .put("duration", durationMicros)
+        .put("attributes", attributes.copy());
+    }
+    tracer.export(span);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Receives the finished spans of a {@link Tracer}, as JSON objects.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+  SpanExporter NOOP = span -> {
+  };
+
+  /**
+   * Opens an exporter that appends one span per line to a file. Spans are dropped while the file lags behind.
+   */
+  static void file(Vertx vertx, String path, Handler<AsyncResult<SpanExporter>> resultHandler) {
+    FileSpanExporter.open(vertx, path, resultHandler);
+  }
+
+  /**
+   * Must not block: spans are exported from the thread that finished them, typically an event loop.
+   */
+  void export(JsonObject span);
+
+  /**
+   * Releases the resources of this exporter, after which spans must no longer be exported to it.
+   */
+  default void close(Handler<AsyncResult<Void>> resultHandler) {
+    resultHandler.handle(Future.succeededFuture());
+  }
+}
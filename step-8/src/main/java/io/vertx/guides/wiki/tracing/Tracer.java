@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates spans and hands the finished ones to a {@link SpanExporter}.
+ * <p>
+ * One tracer is shared by all the verticles of a Vert.x instance. Nothing is sampled until an exporter is installed
+ * with {@link #install(Vertx, SpanExporter, double)}, then new traces are sampled at the given rate. Traces continued
+ * from a remote parent follow the sampling decision of the parent.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class Tracer implements Shareable {
+
+  public static final String TRACEPARENT = "traceparent";
+
+  private static final String SHARED_MAP = "wiki.tracing";
+  private static final String SHARED_KEY = "tracer";
+  private static final Pattern TRACEPARENT_FORMAT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-0([01])");
+
+  private volatile SpanExporter exporter = SpanExporter.NOOP;
+  private volatile double sampleRate = 1.0;
+
+  /**
+   * @return the tracer shared by all verticles of this Vert.x instance
+   */
+  public static Tracer shared(Vertx vertx) {
+    LocalMap<String, Tracer> map = vertx.sharedData().getLocalMap(SHARED_MAP);
+    Tracer tracer = new Tracer();
+    Tracer existing = map.putIfAbsent(SHARED_KEY, tracer);
+    return existing != null ? existing : tracer;
+  }
+
+  /**
+   * Starts sampling all new traces, and exporting their spans to {@code exporter}.
+   */
+  public static void install(Vertx vertx, SpanExporter exporter) {
+    install(vertx, exporter, 1.0);
+  }
+
+  /**
+   * Starts sampling the given fraction of new traces, and exporting their spans to {@code exporter}.
+   */
+  public static void install(Vertx vertx, SpanExporter exporter, double sampleRate) {
+    Tracer tracer = shared(vertx);
+    tracer.sampleRate = sampleRate;
+    tracer.exporter = exporter;
+  }
+
+  /**
+   * @return the first span of a new trace
+   */
+  public Span root(String name) {
+    return new Span(this, randomId(16), null, name, exporter != SpanExporter.NOOP && sample());
+  }
+
+  /**
+   * @return a span that is never exported, nor its children
+   */
+  public static Span unsampled(String name) {
+    return new Span(null, randomId(16), null, name, false);
+  }
+
+  /**
+   * @param traceparent the W3C {@code traceparent} of a remote parent span, if any
+   * @return a child of the remote parent span, or the first span of a new trace when there is no valid parent
+   */
+  public Span continueFrom(String traceparent, String name) {
+    if (traceparent != null) {
+      Matcher matcher = TRACEPARENT_FORMAT.matcher(traceparent);
+      if (matcher.matches()) {
+        return new Span(this, matcher.group(1), matcher.group(2), name, "1".equals(matcher.group(3)));
+      }
+    }
+    return root(name);
+  }
+
+  private boolean sample() {
+    double rate = sampleRate;
+    return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  void export(JsonObject span) {
+    exporter.export(span);
+  }
+
+  static String randomId(int bytes) {
+    StringBuilder id = new StringBuilder(bytes * 2);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < bytes; i++) {
+      String hex = Integer.toHexString(random.nextInt(256));
+      if (hex.length() == 1) {
+        id.append('0');
+      }
+      id.append(hex);
+    }
+    return id.toString();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.Handler;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.ext.web.Route;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+/**
+ * Starts a span for each HTTP request, continued from its {@link Tracer#TRACEPARENT} header if any, and ends it once
+ * the response has been written. The span is tagged with the last route that handled the request.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class TracingHandler implements Handler<RoutingContext> {
+
+  private static final String SPAN_KEY = "wiki.span";
+
+  private final Tracer tracer;
+
+  public static TracingHandler create(Tracer tracer) {
+    return new TracingHandler(tracer);
+  }
+
+  private TracingHandler(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    HttpServerRequest request = context.request();
+    Span span = tracer.continueFrom(request.getHeader(Tracer.TRACEPARENT), request.method() + " " + request.path())
+      .tag("http.method", request.method().name())
+      .tag("http.path", request.path());
+    context.put(SPAN_KEY, span);
+    context.addBodyEndHandler(v -> {
+      Route route = context.currentRoute();
+      if (route != null && route.getPath() != null) {
+        span.tag("http.route", route.getPath());
+      }
+      span.tag("http.status", context.response().getStatusCode());
+      span.finish();
+    });
+    context.next();
+  }
+
+  /**
+   * @return the span of a request, or an unsampled span when the request went through no tracing handler
+   */
+  public static Span span(RoutingContext context) {
+    Span span = context.get(SPAN_KEY);
+    return span != null ? span : Tracer.unsampled("untraced");
+  }
+}
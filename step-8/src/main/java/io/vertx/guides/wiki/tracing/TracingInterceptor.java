@@ -0,0 +1,84 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+import java.util.function.Function;
+
+/**
+ * Service proxy interceptor that continues the trace of a call from its {@link Tracer#TRACEPARENT} header, in a span
+ * named after the service action. Calls without the header start a new trace.
+ * <p>
+ * The interceptor cannot pass anything to the service method besides the message, so the span is left in the context
+ * data for {@link #takeSpan()}, which the service reads before doing anything asynchronous, and which it then ends.
+ * Calls that never reach the service method, such as unknown actions, end their span as failed instead.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+public class TracingInterceptor implements Function<Message<JsonObject>, Future<Message<JsonObject>>> {
+
+  private static final String CONTEXT_KEY = "wiki.span";
+  private static final Throwable NOT_DISPATCHED = new IllegalStateException("The call did not reach the service");
+
+  private final Tracer tracer;
+  private final String service;
+
+  public TracingInterceptor(Tracer tracer, String service) {
+    this.tracer = tracer;
+    this.service = service;
+  }
+
+  @Override
+  public Future<Message<JsonObject>> apply(Message<JsonObject> message) {
+    Span span = tracer.continueFrom(message.headers().get(Tracer.TRACEPARENT), service + " " + message.headers().get("action"))
+      .tag("address", message.address());
+    Context context = Vertx.currentContext();
+    dropUntaken(context);
+    context.put(CONTEXT_KEY, span);
+    // The service method runs as part of this event-loop task, so the span is either taken or stale afterwards
+    context.runOnContext(v -> dropUntaken(context));
+    return Future.succeededFuture(message);
+  }
+
+  private static void dropUntaken(Context context) {
+    Span span = context.get(CONTEXT_KEY);
+    if (span != null) {
+      context.remove(CONTEXT_KEY);
+      span.fail(NOT_DISPATCHED);
+    }
+  }
+
+  /**
+   * @return the span of the call being dispatched, or an unsampled span when the service is called directly
+   */
+  public static Span takeSpan() {
+    Context context = Vertx.currentContext();
+    Span span = context != null ? context.get(CONTEXT_KEY) : null;
+    if (span == null) {
+      return Tracer.unsampled("untraced");
+    }
+    context.remove(CONTEXT_KEY);
+    return span;
+  }
+}
@@ -32,10 +32,14 @@
   </#list>
 
   <#if canCreatePage>
-    <#if backup_gist_url?has_content>
+    <#if backup_name?has_content>
       <div class="alert alert-success" role="alert">
         Successfully created a backup:
-        <a href="${backup_gist_url}" class="alert-link">${backup_gist_url}</a>
+        <#if backup_url?has_content>
+          <a href="${backup_url}" class="alert-link">${backup_name}</a>
+        <#else>
+          <code>${backup_name}</code>
+        </#if>
       </div>
     <#else>
       <p>
@@ -43,6 +47,15 @@
       </p>
     </#if>
   </#if>
+
+  <#if canInvalidatePermissions>
+    <form class="form-inline" action="/action/permissions" method="post">
+      <div class="form-group">
+        <input type="text" class="form-control form-control-sm" name="username" placeholder="Username, or empty for all">
+      </div>
+      <button type="submit" class="btn btn-outline-secondary btn-sm">Reload permissions</button>
+    </form>
+  </#if>
   </div>
 
 </div>
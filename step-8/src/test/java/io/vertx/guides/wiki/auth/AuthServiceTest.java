@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.auth;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.guides.wiki.auth.reactivex.AuthService;
+import io.vertx.guides.wiki.http.AuthInitializerVerticle;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class AuthServiceTest {
+
+  private static final String JDBC_URL = "jdbc:hsqldb:mem:authservice;shutdown=true";
+
+  private Vertx vertx;
+  private AuthService authService;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    JsonObject conf = new JsonObject().put(CONFIG_WIKIDB_JDBC_URL, JDBC_URL);
+    Async async = context.async();
+    vertx.rxDeployVerticle(AuthInitializerVerticle.class.getName(), new DeploymentOptions().setConfig(conf))
+      .flatMap(id -> vertx.rxDeployVerticle(AuthServiceVerticle.class.getName(), new DeploymentOptions().setConfig(conf)))
+      .subscribe(id -> async.complete(), context::fail);
+    authService = io.vertx.guides.wiki.auth.AuthService.createProxy(vertx.getDelegate(), "auth.queue");
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void authenticate_and_cache(TestContext context) {
+    Async async = context.async();
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", JDBC_URL)
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS));
+
+    authService.rxAuthenticate("foo", "bar")
+      .flatMap(user -> {
+        context.assertEquals("foo", user.getString("username"));
+        context.assertTrue(user.getJsonObject("authorities").containsKey("create"));
+        context.assertTrue(user.getJsonObject("authorities").containsKey("role:writer"));
+        return dbClient.rxUpdate("delete from user_roles where username = 'foo' and role = 'editor'");
+      })
+      .flatMap(res -> authService.rxAuthorities("foo"))
+      .flatMap(cached -> {
+        context.assertTrue(cached.containsKey("create"));
+        return authService.rxInvalidate("foo").andThen(authService.rxAuthorities("foo"));
+      })
+      .flatMap(reloaded -> {
+        context.assertFalse(reloaded.containsKey("create"));
+        return authService.rxAuthenticate("foo", "wrong");
+      })
+      .subscribe(user -> context.fail("Authenticated with a wrong password"), t -> async.complete());
+  }
+}
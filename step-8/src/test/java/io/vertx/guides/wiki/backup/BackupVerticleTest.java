@@ -0,0 +1,223 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class BackupVerticleTest {
+
+  private static final String JDBC_URL = "jdbc:hsqldb:mem:backup;shutdown=true";
+  private static final int PAGES = 200;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+  private JDBCClient dbClient;
+  private Buffer uploaded;
+  private String transferEncoding;
+  private int uploadPort;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", JDBC_URL)
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS));
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      content.append("Some *Markdown* content for the page, line ").append(i).append('\n');
+    }
+    List<String> statements = new ArrayList<>();
+    statements.add("drop table Pages if exists");
+    statements.add("drop table PageChanges if exists");
+    statements.add("create table Pages (Id integer identity primary key, Name varchar(255) unique, Content clob)");
+    statements.add("create table PageChanges (Version bigint identity primary key, PageId integer not null, Operation varchar(16) not null)");
+    for (int i = 0; i < PAGES; i++) {
+      statements.add("insert into Pages values (NULL, 'Page " + i + "', '" + content + "')");
+    }
+    dbClient.getConnection(context.asyncAssertSuccess(connection ->
+      connection.batch(statements, context.asyncAssertSuccess(res -> connection.close()))));
+
+    // Stands in for the remote backup storage
+    Async listening = context.async();
+    vertx.createHttpServer()
+      .requestHandler(request -> {
+        transferEncoding = request.getHeader("Transfer-Encoding");
+        request.bodyHandler(body -> {
+          uploaded = body;
+          request.response()
+            .setStatusCode(201)
+            .putHeader("Location", "http://localhost:" + uploadPort + "/backups/1")
+            .end();
+        });
+      })
+      .listen(0, context.asyncAssertSuccess(server -> {
+        uploadPort = server.actualPort();
+        listening.complete();
+      }));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void stream_backup_and_upload(TestContext context) throws IOException {
+    Async async = context.async();
+    JsonObject conf = new JsonObject()
+      .put(CONFIG_WIKIDB_JDBC_URL, JDBC_URL)
+      .put(BackupVerticle.CONFIG_BACKUP_DIR, folder.newFolder().getAbsolutePath())
+      .put(BackupVerticle.CONFIG_BACKUP_UPLOAD_URL, "http://localhost:" + uploadPort + "/backups");
+    vertx.deployVerticle(new BackupVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(id ->
+      vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(), context.asyncAssertSuccess(reply -> {
+        JsonObject backup = reply.body();
+        context.assertEquals(PAGES, backup.getInteger("pages"));
+        context.assertEquals("http://localhost:" + uploadPort + "/backups/1", backup.getString("url"));
+        context.assertEquals("chunked", transferEncoding);
+
+        Buffer archive = vertx.fileSystem().readFileBlocking(backup.getString("file"));
+        context.assertEquals(archive, uploaded);
+        context.assertEquals((long) archive.length(), backup.getLong("size"));
+
+        List<JsonObject> pages = readArchive(archive);
+        context.assertEquals(PAGES, pages.size());
+        context.assertEquals("Page 0", pages.get(0).getString("name"));
+        context.assertTrue(pages.get(PAGES - 1).getString("content").startsWith("Some *Markdown* content"));
+        async.complete();
+      }))));
+  }
+
+  @Test
+  public void one_backup_at_a_time(TestContext context) throws IOException {
+    Async async = context.async(2);
+    JsonObject conf = new JsonObject()
+      .put(CONFIG_WIKIDB_JDBC_URL, JDBC_URL)
+      .put(BackupVerticle.CONFIG_BACKUP_DIR, folder.newFolder().getAbsolutePath());
+    vertx.deployVerticle(new BackupVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(id -> {
+      vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(), context.asyncAssertSuccess(reply -> {
+        context.assertNull(reply.body().getString("url"));
+        async.countDown();
+      }));
+      vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(), context.asyncAssertFailure(t -> {
+        context.assertEquals(BackupVerticle.BACKUP_IN_PROGRESS, ((ReplyException) t).failureCode());
+        async.countDown();
+      }));
+    }));
+  }
+
+  @Test
+  public void incremental_backup_and_restore(TestContext context) throws IOException {
+    Async async = context.async();
+    JsonObject conf = new JsonObject()
+      .put(CONFIG_WIKIDB_JDBC_URL, JDBC_URL)
+      .put(BackupVerticle.CONFIG_BACKUP_DIR, folder.newFolder().getAbsolutePath());
+    List<String> changes = Arrays.asList(
+      "update Pages set Content = 'Changed' where Id = 5",
+      "insert into PageChanges values (NULL, 5, 'SAVE')",
+      "delete from Pages where Id = 7",
+      "insert into PageChanges values (NULL, 7, 'DELETE')",
+      "insert into Pages values (NULL, 'New page', 'New')",
+      "insert into PageChanges values (NULL, " + PAGES + ", 'CREATE')");
+    List<String> disaster = Arrays.asList(
+      "delete from Pages",
+      "insert into Pages values (NULL, 'Lost', 'Lost')");
+
+    vertx.deployVerticle(new BackupVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(id ->
+      vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(), context.asyncAssertSuccess(full -> {
+        context.assertEquals("full", full.body().getString("type"));
+        context.assertEquals(PAGES, full.body().getInteger("pages"));
+
+        dbClient.getConnection(context.asyncAssertSuccess(connection -> connection.batch(changes, context.asyncAssertSuccess(r1 ->
+          vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(), context.asyncAssertSuccess(delta -> {
+            context.assertEquals("delta", delta.body().getString("type"));
+            context.assertEquals(3, delta.body().getInteger("pages"));
+            List<JsonObject> records = readArchive(vertx.fileSystem().readFileBlocking(delta.body().getString("file")));
+            context.assertEquals("Changed", records.get(0).getString("content"));
+            context.assertTrue(records.get(1).getBoolean("deleted"));
+            context.assertEquals("New page", records.get(2).getString("name"));
+
+            connection.batch(disaster, context.asyncAssertSuccess(r2 ->
+              vertx.eventBus().<JsonObject>request("backup.queue", new JsonObject(),
+                new DeliveryOptions().addHeader("action", "restore"), context.asyncAssertSuccess(restore -> {
+                  context.assertEquals(2, restore.body().getInteger("archives"));
+                  context.assertEquals(PAGES + 3, restore.body().getInteger("records"));
+
+                  connection.update("insert into Pages values (NULL, 'After restore', '')", context.asyncAssertSuccess(r3 ->
+                    connection.query("select Id, Name, Content from Pages order by Id", context.asyncAssertSuccess(rs -> {
+                      List<JsonArray> rows = rs.getResults();
+                      context.assertEquals(PAGES + 1, rows.size());
+                      context.assertEquals("Changed", rows.get(5).getString(2));
+                      context.assertEquals(8, rows.get(7).getInteger(0));
+                      context.assertEquals("New page", rows.get(PAGES - 1).getString(1));
+                      context.assertEquals(PAGES + 1, rows.get(PAGES).getInteger(0));
+                      connection.close();
+                      async.complete();
+                    }))));
+                }))));
+          }))))));
+      }))));
+  }
+
+  private List<JsonObject> readArchive(Buffer archive) {
+    List<JsonObject> pages = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+      new GZIPInputStream(new ByteArrayInputStream(archive.getBytes())), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        pages.add(new JsonObject(line));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return pages;
+  }
+}
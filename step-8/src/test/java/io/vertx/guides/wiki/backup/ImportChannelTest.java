@@ -0,0 +1,142 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class ImportChannelTest {
+
+  private static final String QUEUE = "test.import";
+  private static final long IDLE_TIMEOUT = 500L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+  private JDBCClient dbClient;
+
+  @Before
+  public void prepare(TestContext context) throws IOException {
+    vertx = Vertx.vertx();
+    dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", "jdbc:hsqldb:mem:channel;shutdown=true")
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS));
+    dbClient.getConnection(context.asyncAssertSuccess(connection ->
+      connection.batch(Arrays.asList(
+        "drop table Pages if exists",
+        "drop table PageChanges if exists",
+        "create table Pages (Id integer identity primary key, Name varchar(255) unique, Content clob)",
+        "create table PageChanges (Version bigint identity primary key, PageId integer not null, Operation varchar(16) not null)"),
+        context.asyncAssertSuccess(res -> connection.close()))));
+    ImportChannel.listen(vertx, QUEUE, PageImporterTest.importer(dbClient, 100, 5), IDLE_TIMEOUT, progress -> {
+    });
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void streams_the_body_to_the_importer(TestContext context) throws IOException {
+    Async async = context.async();
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i < 2500; i++) {
+      ndjson.append(new JsonObject().put("name", "Page " + i).put("content", "Content " + i).encode()).append('\n');
+    }
+    // Small reads make many more messages than the window, so that the sender is paused by the importer
+    AsyncFile input = open(ndjson.toString()).setReadBufferSize(512);
+    ImportChannel.send(vertx, QUEUE, false, input, 5000L, context.asyncAssertSuccess(result -> {
+      context.assertEquals(2500, result.getInteger("pages"));
+      dbClient.query("select count(*) from Pages", context.asyncAssertSuccess(rs -> {
+        context.assertEquals(2500, rs.getResults().get(0).getInteger(0));
+        async.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void failed_import_fails_the_sender(TestContext context) throws IOException {
+    Async async = context.async();
+    AsyncFile input = open("{\"name\":\"Page\",\"content\":\"Content\"}\nnot json\n");
+    ImportChannel.send(vertx, QUEUE, false, input, 5000L, context.asyncAssertFailure(t -> {
+      context.assertTrue(t instanceof ReplyException);
+      context.assertEquals(ImportChannel.IMPORT_FAILED, ((ReplyException) t).failureCode());
+      context.assertTrue(t.getMessage().startsWith("Invalid page record"), t.getMessage());
+      async.complete();
+    }));
+  }
+
+  @Test
+  public void one_import_at_a_time(TestContext context) throws IOException {
+    Async async = context.async();
+    // A channel that is opened but never fed holds the import until it goes idle
+    vertx.eventBus().request(QUEUE, new JsonObject(), context.asyncAssertSuccess(channel -> {
+      long opened = System.currentTimeMillis();
+      ImportChannel.send(vertx, QUEUE, false, open(""), 5000L, context.asyncAssertFailure(t -> {
+        context.assertEquals(ImportChannel.IMPORT_IN_PROGRESS, ((ReplyException) t).failureCode());
+        vertx.setTimer(IDLE_TIMEOUT * 2, id -> {
+          vertx.eventBus().request((String) channel.body(), Buffer.buffer("{}\n"), context.asyncAssertFailure(idle -> {
+            context.assertTrue(System.currentTimeMillis() - opened >= IDLE_TIMEOUT);
+            ImportChannel.send(vertx, QUEUE, false, open(""), 5000L, context.asyncAssertSuccess(result -> {
+              context.assertEquals(0, result.getInteger("pages"));
+              async.complete();
+            }));
+          }));
+        });
+      }));
+    }));
+  }
+
+  private AsyncFile open(String content) {
+    try {
+      File file = folder.newFile();
+      vertx.fileSystem().writeFileBlocking(file.getAbsolutePath(), Buffer.buffer(content));
+      return vertx.fileSystem().openBlocking(file.getAbsolutePath(), new OpenOptions().setRead(true).setWrite(false))
+        .pause();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
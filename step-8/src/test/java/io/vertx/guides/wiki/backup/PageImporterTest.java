@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.backup;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PageImporterTest {
+
+  private static final int PAGES = 2500;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Vertx vertx;
+  private JDBCClient dbClient;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", "jdbc:hsqldb:mem:import;shutdown=true")
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS));
+    dbClient.getConnection(context.asyncAssertSuccess(connection ->
+      connection.batch(Arrays.asList(
+        "drop table Pages if exists",
+        "drop table PageChanges if exists",
+        "create table Pages (Id integer identity primary key, Name varchar(255) unique, Content clob)",
+        "create table PageChanges (Version bigint identity primary key, PageId integer not null, Operation varchar(16) not null)",
+        "insert into Pages values (NULL, 'Page 1', 'Old content')"), context.asyncAssertSuccess(res -> connection.close()))));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void import_ndjson(TestContext context) throws IOException {
+    Buffer ndjson = Buffer.buffer();
+    for (int i = 0; i < PAGES; i++) {
+      ndjson.appendString(new JsonObject().put("name", "Page " + i).put("content", "Content " + i).encode()).appendString("\n");
+    }
+    ndjson.appendString("{\"id\":42,\"deleted\":true}\n");
+    File file = folder.newFile();
+    vertx.fileSystem().writeFileBlocking(file.getAbsolutePath(), ndjson);
+
+    AtomicInteger commits = new AtomicInteger();
+    importFile(context, file, false, commits, result -> {
+      context.assertEquals(PAGES, result.getInteger("pages"));
+      context.assertEquals(1, result.getInteger("skipped"));
+      context.assertTrue(result.containsKey("pagesPerSecond"));
+      context.assertEquals(PAGES / 500, commits.get());
+    });
+  }
+
+  @Test
+  public void import_backup_archive(TestContext context) throws IOException {
+    File file = folder.newFile();
+    Async written = context.async();
+    vertx.fileSystem().open(file.getAbsolutePath(), new OpenOptions().setWrite(true), context.asyncAssertSuccess(out -> {
+      GzipWriteStream archive = new GzipWriteStream(out);
+      for (int i = 0; i < PAGES; i++) {
+        archive.write(Buffer.buffer(new JsonObject().put("id", i).put("name", "Page " + i).put("content", "Content " + i).encode() + "\n"));
+      }
+      archive.end(context.asyncAssertSuccess(v -> written.complete()));
+    }));
+    written.awaitSuccess(5000);
+
+    importFile(context, file, true, new AtomicInteger(), result ->
+      context.assertEquals(PAGES, result.getInteger("pages")));
+  }
+
+  @Test
+  public void failed_import_keeps_committed_transactions(TestContext context) throws IOException {
+    Async async = context.async();
+    Buffer ndjson = Buffer.buffer();
+    for (int i = 0; i < 600; i++) {
+      ndjson.appendString(new JsonObject().put("name", "Page " + i).put("content", "Content " + i).encode()).appendString("\n");
+    }
+    ndjson.appendString("not json\n");
+    File file = folder.newFile();
+    vertx.fileSystem().writeFileBlocking(file.getAbsolutePath(), ndjson);
+
+    PageImporter importer = importer(dbClient, 100, 5);
+    vertx.fileSystem().open(file.getAbsolutePath(), new OpenOptions().setRead(true).setWrite(false), context.asyncAssertSuccess(input -> {
+      input.pause();
+      importer.importPages(input, false, progress -> {
+      }, context.asyncAssertFailure(t -> {
+        context.assertTrue(t instanceof IllegalArgumentException);
+        dbClient.query("select count(*) from Pages", context.asyncAssertSuccess(rs -> {
+          context.assertEquals(500, rs.getResults().get(0).getInteger(0));
+          async.complete();
+        }));
+      }));
+    }));
+  }
+
+  static PageImporter importer(JDBCClient dbClient, int batchSize, int batchesPerTransaction) throws IOException {
+    Properties queries = new Properties();
+    try (InputStream in = PageImporterTest.class.getResourceAsStream("/db-queries.properties")) {
+      queries.load(in);
+    }
+    return new PageImporter(dbClient, queries.getProperty("import-page"), queries.getProperty("log-page-import"),
+      batchSize, batchesPerTransaction);
+  }
+
+  private void importFile(TestContext context, File file, boolean gzip, AtomicInteger commits, java.util.function.Consumer<JsonObject> check) throws IOException {
+    Async async = context.async();
+    PageImporter importer = importer(dbClient, 100, 5);
+    vertx.fileSystem().open(file.getAbsolutePath(), new OpenOptions().setRead(true).setWrite(false), context.asyncAssertSuccess(input -> {
+      input.pause();
+      importer.importPages(input, gzip, progress -> commits.incrementAndGet(), context.asyncAssertSuccess(result -> {
+        check.accept(result);
+        dbClient.query("select (select count(*) from Pages), (select Content from Pages where Name = 'Page 1'), " +
+          "(select count(*) from PageChanges) from (values(0))", context.asyncAssertSuccess(rs -> {
+          context.assertEquals(PAGES, rs.getResults().get(0).getInteger(0));
+          context.assertEquals("Content 1", rs.getResults().get(0).getString(1));
+          context.assertEquals(PAGES, rs.getResults().get(0).getInteger(2));
+          async.complete();
+        }));
+      }));
+    }));
+  }
+}
@@ -19,7 +19,9 @@ package io.vertx.guides.wiki.database;
 
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -29,6 +31,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
@@ -89,6 +94,33 @@ public class WikiDatabaseVerticleTest {
     async.awaitSuccess(5000);
   }
 
+  @Test
+  public void change_log(TestContext context) {
+    Async async = context.async();
+    JDBCClient dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", "jdbc:hsqldb:mem:testdb;shutdown=true")
+      .put("driver_class", "org.hsqldb.jdbcDriver"));
+
+    service.createPage("Logged", "v1", context.asyncAssertSuccess(v1 -> {
+      service.fetchPage("Logged", context.asyncAssertSuccess(page -> {
+        int id = page.getInteger("id");
+        service.savePage(id, "v2", context.asyncAssertSuccess(v2 -> {
+          service.deletePage(id, context.asyncAssertSuccess(v3 -> {
+            dbClient.queryWithParams("select Operation from PageChanges where PageId = ? order by Version",
+              new JsonArray().add(id), context.asyncAssertSuccess(rs -> {
+                context.assertEquals(Arrays.asList("CREATE", "SAVE", "DELETE"), rs.getResults().stream()
+                  .map(row -> row.getString(0))
+                  .collect(Collectors.toList()));
+                async.complete();
+              }));
+          }));
+        }));
+      }));
+    }));
+
+    async.awaitSuccess(5000);
+  }
+
   @Test
   public void test_fetchAllPagesData(TestContext context) {
     Async async = context.async();
@@ -21,6 +21,7 @@ import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.JksOptions;
@@ -31,12 +32,15 @@ import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
 import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.UUID;
+
 /**
  * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
  */
@@ -51,8 +55,9 @@ public class ApiTest {
   public void prepare(TestContext context) {
     vertx = Vertx.vertx();
 
+    // Each test gets its own database: assertions rely on page counts and identity values
     JsonObject dbConf = new JsonObject()
-      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:testdb;shutdown=true")
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:apitest-" + UUID.randomUUID() + ";shutdown=true")
       .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4);
 
     vertx.deployVerticle(new AuthInitializerVerticle(),
@@ -61,7 +66,11 @@ public class ApiTest {
     vertx.deployVerticle(new WikiDatabaseVerticle(),
       new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
 
-    vertx.deployVerticle(new HttpServerVerticle(), context.asyncAssertSuccess());
+    vertx.deployVerticle(new AuthServiceVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
+
+    vertx.deployVerticle(new HttpServerVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
 
     webClient = WebClient.create(vertx, new WebClientOptions()
       .setDefaultHost("localhost")
@@ -146,4 +155,39 @@ public class ApiTest {
 
     async.awaitSuccess(5000);
   }
+
+  @Test
+  public void import_pages(TestContext context) {
+    Async async = context.async();
+
+    Buffer ndjson = Buffer.buffer();
+    for (int i = 0; i < 3; i++) {
+      ndjson.appendString(new JsonObject().put("name", "Imported " + i).put("content", "# Page " + i).encode()).appendString("\n");
+    }
+
+    webClient.get("/api/token")
+      .putHeader("login", "foo")
+      .putHeader("password", "bar")
+      .as(BodyCodec.string())
+      .send(context.asyncAssertSuccess(tokenResponse -> {
+        String token = "Bearer " + tokenResponse.body();
+        webClient.post("/api/import")
+          .putHeader("Authorization", token)
+          .putHeader("Content-Type", "application/x-ndjson")
+          .as(BodyCodec.jsonObject())
+          .sendBuffer(ndjson, context.asyncAssertSuccess(importResponse -> {
+            context.assertTrue(importResponse.body().getBoolean("success"));
+            context.assertEquals(3, importResponse.body().getJsonObject("import").getInteger("pages"));
+            webClient.get("/api/pages")
+              .putHeader("Authorization", token)
+              .as(BodyCodec.jsonObject())
+              .send(context.asyncAssertSuccess(pagesResponse -> {
+                context.assertEquals(3, pagesResponse.body().getJsonArray("pages").size());
+                async.complete();
+              }));
+          }));
+      }));
+
+    async.awaitSuccess(5000);
+  }
 }
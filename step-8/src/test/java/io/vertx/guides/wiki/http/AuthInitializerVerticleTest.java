@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static io.vertx.guides.wiki.DatabaseConstants.*;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class AuthInitializerVerticleTest {
+
+  private final String jdbcUrl = "jdbc:hsqldb:mem:authmigration-" + UUID.randomUUID() + ";shutdown=true";
+
+  private Vertx vertx;
+  private JDBCClient dbClient;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+    dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", jdbcUrl)
+      .put("driver_class", DEFAULT_WIKIDB_JDBC_DRIVER_CLASS)
+      .put("max_pool_size", 2));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void migrate_legacy_tables(TestContext context) {
+    Async async = context.async();
+    dbClient.rxGetConnection()
+      .flatMap(connection -> connection.rxBatch(Arrays.asList(
+        "create table user (username varchar(255), password varchar(255), password_salt varchar(255))",
+        "create table user_roles (username varchar(255), role varchar(255))",
+        "create table roles_perms (role varchar(255), perm varchar(255))",
+        "insert into user values ('foo', 'hash', 'salt')",
+        "insert into user_roles values ('foo', 'writer')",
+        "insert into user_roles values ('foo', 'writer')",
+        "insert into roles_perms values ('writer', 'update')"))
+        .doFinally(connection::close))
+      .flatMap(rs -> vertx.rxDeployVerticle(AuthInitializerVerticle.class.getName(),
+        new DeploymentOptions().setConfig(new JsonObject().put(CONFIG_WIKIDB_JDBC_URL, jdbcUrl))))
+      .flatMap(id -> dbClient.rxQuery("select count(*) from information_schema.table_constraints " +
+        "where constraint_type = 'PRIMARY KEY' and table_name in ('USER', 'USER_ROLES', 'ROLES_PERMS')"))
+      .flatMap(rs -> {
+        context.assertEquals(3, rs.getResults().get(0).getInteger(0));
+        return dbClient.rxQueryWithParams("select role from user_roles where username = ?", new JsonArray().add("foo"));
+      })
+      .subscribe(rs -> {
+        context.assertEquals(1, rs.getNumRows());
+        async.complete();
+      }, context::fail);
+  }
+
+  @Test
+  public void resume_interrupted_migration(TestContext context) {
+    Async async = context.async();
+    dbClient.rxGetConnection()
+      .flatMap(connection -> connection.rxBatch(Arrays.asList(
+        // Interrupted while copying: the legacy table is still there
+        "create table user (username varchar(255), password varchar(255), password_salt varchar(255))",
+        "insert into user values ('foo', 'hash', 'salt')",
+        "create table user_keyed (username varchar(255) not null, password varchar(255), password_salt varchar(255), constraint pk_user primary key (username))",
+        // Interrupted after dropping the legacy table
+        "create table user_roles_keyed (username varchar(255) not null, role varchar(255) not null, constraint pk_user_roles primary key (username, role))",
+        "insert into user_roles_keyed values ('foo', 'writer')",
+        // Already migrated
+        "create table roles_perms (role varchar(255) not null, perm varchar(255) not null, constraint pk_roles_perms primary key (role, perm))",
+        "insert into roles_perms values ('writer', 'update')"))
+        .doFinally(connection::close))
+      .flatMap(rs -> vertx.rxDeployVerticle(AuthInitializerVerticle.class.getName(),
+        new DeploymentOptions().setConfig(new JsonObject().put(CONFIG_WIKIDB_JDBC_URL, jdbcUrl))))
+      .flatMap(id -> dbClient.rxQuery("select count(*) from information_schema.tables " +
+        "where table_name in ('USER_KEYED', 'USER_ROLES_KEYED', 'ROLES_PERMS_KEYED')"))
+      .flatMap(rs -> {
+        context.assertEquals(0, rs.getResults().get(0).getInteger(0));
+        return dbClient.rxQuery("select u.username, r.role, p.perm from user u " +
+          "join user_roles r on r.username = u.username join roles_perms p on p.role = r.role");
+      })
+      .subscribe(rs -> {
+        context.assertEquals(1, rs.getNumRows());
+        context.assertEquals("foo", rs.getResults().get(0).getString(0));
+        async.complete();
+      }, context::fail);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.jwt.JWTOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class CachingJWTAuthTest {
+
+  private Vertx vertx;
+  private JWTAuth jwtAuth;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+    jwtAuth = new CachingJWTAuth(JWTAuth.create(vertx, new JWTAuthOptions()
+      .addPubSecKey(new PubSecKeyOptions()
+        .setAlgorithm("HS256")
+        .setPublicKey("secret")
+        .setSymmetric(true))), 10);
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void cache_until_expiry(TestContext context) {
+    Async async = context.async();
+    String token = jwtAuth.generateToken(new JsonObject().put("username", "foo"), new JWTOptions().setExpiresInSeconds(1));
+    JsonObject authInfo = new JsonObject().put("jwt", token).put("options", new JsonObject());
+
+    jwtAuth.authenticate(authInfo, context.asyncAssertSuccess(first ->
+      jwtAuth.authenticate(authInfo, context.asyncAssertSuccess(second -> {
+        context.assertTrue(first == second);
+        vertx.setTimer(2100, id -> jwtAuth.authenticate(authInfo, context.asyncAssertFailure(t -> async.complete())));
+      }))));
+  }
+
+  @Test
+  public void reject_bad_signature(TestContext context) {
+    String token = jwtAuth.generateToken(new JsonObject().put("username", "foo"), new JWTOptions());
+    String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+    jwtAuth.authenticate(new JsonObject().put("jwt", tampered).put("options", new JsonObject()),
+      context.asyncAssertFailure());
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PartitionedSessionStoreTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shared_between_store_instances(TestContext context) {
+    Async async = context.async();
+    PartitionedSessionStore first = PartitionedSessionStore.create(vertx, 4, 60_000L);
+    PartitionedSessionStore second = PartitionedSessionStore.create(vertx, 4, 60_000L);
+    context.assertTrue(first == second);
+
+    Session session = first.createSession(60_000L);
+    session.put("username", "foo");
+    first.put(session, context.asyncAssertSuccess(v ->
+      second.get(session.id(), context.asyncAssertSuccess(found -> {
+        context.assertEquals("foo", found.get("username"));
+        second.size(context.asyncAssertSuccess(size -> {
+          context.assertEquals(1, size);
+          async.complete();
+        }));
+      }))));
+  }
+
+  @Test
+  public void sweep_expired_sessions(TestContext context) {
+    Async async = context.async();
+    SessionStore store = new PartitionedSessionStore().init(vertx, new JsonObject()
+      .put("mapName", "test.sessions")
+      .put("partitions", 2)
+      .put("sweepInterval", 20L));
+
+    Session session = store.createSession(10L);
+    store.put(session, context.asyncAssertSuccess(v -> vertx.setTimer(200L, id ->
+      store.size(context.asyncAssertSuccess(size -> {
+        context.assertEquals(0, size);
+        store.get(session.id(), context.asyncAssertSuccess(found -> {
+          context.assertNull(found);
+          async.complete();
+        }));
+      })))));
+  }
+
+  @Test
+  public void sweep_survives_release_by_other_users(TestContext context) {
+    Async async = context.async();
+    PartitionedSessionStore first = PartitionedSessionStore.create(vertx, 2, 20L);
+    PartitionedSessionStore second = PartitionedSessionStore.create(vertx, 2, 20L);
+    first.close();
+
+    Session session = second.createSession(10L);
+    second.put(session, context.asyncAssertSuccess(v -> vertx.setTimer(200L, id ->
+      second.size(context.asyncAssertSuccess(size -> {
+        context.assertEquals(0, size);
+        second.close();
+        context.assertFalse(second == PartitionedSessionStore.create(vertx, 2, 20L));
+        async.complete();
+      })))));
+  }
+
+  @Test
+  public void nodes_claim_partitions_before_sweeping(TestContext context) {
+    Async async = context.async();
+    JsonObject options = new JsonObject()
+      .put("mapName", "test.claims")
+      .put("partitions", 2)
+      .put("sweepInterval", 20L);
+    // Two stores on the same maps stand for two nodes
+    SessionStore first = new PartitionedSessionStore().init(vertx, options);
+    SessionStore second = new PartitionedSessionStore().init(vertx, options);
+
+    Session session = first.createSession(10L);
+    first.put(session, context.asyncAssertSuccess(v -> vertx.setTimer(200L, id ->
+      second.size(context.asyncAssertSuccess(size -> {
+        context.assertEquals(0, size);
+        long round = System.currentTimeMillis() / 40L;
+        vertx.sharedData().getCounter("test.claims.sweep.0", context.asyncAssertSuccess(counter ->
+          counter.get(context.asyncAssertSuccess(claimed -> {
+            context.assertTrue(claimed > 0L && claimed <= round, "Last claimed round: " + claimed);
+            async.complete();
+          }))));
+      })))));
+  }
+}
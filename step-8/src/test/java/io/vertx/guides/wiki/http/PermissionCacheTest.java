@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.ext.auth.AbstractUser;
+import io.vertx.ext.auth.AuthProvider;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
+import io.vertx.guides.wiki.auth.AuthoritiesInvalidation;
+import io.vertx.guides.wiki.auth.JDBCAuthorities;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.auth.User;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import io.vertx.reactivex.ext.web.Session;
+import io.vertx.reactivex.ext.web.sstore.LocalSessionStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static io.vertx.guides.wiki.DatabaseConstants.CONFIG_WIKIDB_JDBC_URL;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PermissionCacheTest {
+
+  private Vertx vertx;
+  private JDBCClient dbClient;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    dbClient = JDBCClient.createShared(vertx, new JsonObject()
+      .put("url", "jdbc:hsqldb:mem:permissions;shutdown=true")
+      .put("driver_class", "org.hsqldb.jdbcDriver")
+      .put("max_pool_size", 2));
+    Async async = context.async();
+    dbClient.rxGetConnection()
+      .flatMap(connection -> connection.rxBatch(Arrays.asList(
+        "create table user_roles (username varchar(255), role varchar(255))",
+        "create table roles_perms (role varchar(255), perm varchar(255))",
+        "insert into user_roles values ('foo', 'editor')",
+        "insert into user_roles values ('foo', 'guest')",
+        "insert into roles_perms values ('editor', 'create')",
+        "insert into roles_perms values ('editor', 'update')"))
+        .doFinally(connection::close))
+      .flatMap(rs -> vertx.rxDeployVerticle(new AuthServiceVerticle(), new DeploymentOptions().setConfig(new JsonObject()
+        .put(CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:permissions;shutdown=true"))))
+      .subscribe(id -> async.complete(), context::fail);
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void cache_and_invalidate(TestContext context) {
+    Async async = context.async();
+    PermissionCache cache = new PermissionCache(vertx, JDBCAuthorities.create(dbClient)::rxLoad, 60_000L);
+    Session session = LocalSessionStore.create(vertx).createSession(60_000L);
+    User user = user("foo");
+
+    cache.authorities(session, user)
+      .flatMap(authorities -> {
+        context.assertEquals(new JsonObject()
+          .put("role:editor", true)
+          .put("role:guest", true)
+          .put("create", true)
+          .put("update", true), authorities);
+        return dbClient.rxUpdate("delete from roles_perms where perm = 'create'");
+      })
+      .flatMap(res -> cache.isAuthorized(session, user, "create"))
+      .flatMap(cached -> {
+        context.assertTrue(cached);
+        AuthoritiesInvalidation.publish(vertx.getDelegate(), "foo");
+        return invalidated("foo").andThen(cache.isAuthorized(session, user, "create"));
+      })
+      .subscribe(reloaded -> {
+        context.assertFalse(reloaded);
+        // Applied once per Vert.x instance, by its auth service verticle
+        context.assertEquals(1L, AuthoritiesInvalidation.generation(AuthoritiesInvalidation.generations(vertx.getDelegate()), "foo"));
+        async.complete();
+      }, context::fail);
+  }
+
+  private Completable invalidated(String username) {
+    LocalMap<String, Long> generations = AuthoritiesInvalidation.generations(vertx.getDelegate());
+    return Observable.interval(10, TimeUnit.MILLISECONDS, RxHelper.scheduler(vertx))
+      .filter(tick -> AuthoritiesInvalidation.generation(generations, username) > 0L)
+      .firstOrError()
+      .ignoreElement();
+  }
+
+  private User user(String username) {
+    return User.newInstance(new AbstractUser() {
+      @Override
+      protected void doIsPermitted(String permission, Handler<AsyncResult<Boolean>> resultHandler) {
+        resultHandler.handle(Future.failedFuture("Not expected"));
+      }
+
+      @Override
+      public JsonObject principal() {
+        return new JsonObject().put("username", username);
+      }
+
+      @Override
+      public void setAuthProvider(AuthProvider authProvider) {
+      }
+    });
+  }
+}
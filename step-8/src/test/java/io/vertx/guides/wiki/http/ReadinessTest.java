@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.guides.wiki.Readiness;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class ReadinessTest {
+
+  private Vertx vertx;
+  private WebClient webClient;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions()
+      .setConfig(new JsonObject().put(HttpServerVerticle.CONFIG_HTTP_AWAIT_READINESS, true)), context.asyncAssertSuccess());
+    webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(8080)
+      .setSsl(true)
+      .setFollowRedirects(false)
+      .setTrustOptions(new JksOptions().setPath("server-keystore.jks").setPassword("secret")));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void unavailable_until_ready(TestContext context) {
+    Async async = context.async();
+    webClient.get("/login").send(context.asyncAssertSuccess(login -> {
+      context.assertEquals(200, login.statusCode());
+      webClient.get("/").send(context.asyncAssertSuccess(before -> {
+        context.assertEquals(503, before.statusCode());
+        Readiness.signal(vertx);
+        vertx.setTimer(100, id -> webClient.get("/").send(context.asyncAssertSuccess(after -> {
+          // Past the readiness gate, unauthenticated users are sent to the login form
+          context.assertEquals(302, after.statusCode());
+          async.complete();
+        })));
+      }));
+    }));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.ext.web.handler.SessionHandler;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Compares the heap retained per API request when the session handler runs on every route, as it used to, and with
+ * the session handler scoped to the HTML pages as {@link HttpServerVerticle} does now. Being a measurement, it only runs
+ * with {@code mvn -Pdensity test}.
+ * <p>
+ * The number of requests can be changed with {@code -Dapi.requests=N}. The test fails unless scoping the session
+ * handler at least halves the retained heap.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class SessionDensityTest {
+
+  private static final int REQUESTS = Integer.getInteger("api.requests", 20_000);
+  private static final int WARMUP_REQUESTS = 100;
+
+  private Vertx vertx;
+
+  @Before
+  public void prepare() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void retained_heap_per_api_request(TestContext context) throws Exception {
+    long everyRoute = sessionOnEveryRoute(context);
+    long scoped = scopedSessions(context);
+
+    System.out.println(String.format("%d API requests: ~%d bytes of heap retained per request with a session on every " +
+      "route, ~%d bytes with scoped sessions", REQUESTS, everyRoute, scoped));
+    context.assertTrue(scoped * 2 < everyRoute, "Scoping the session handler should at least halve the retained heap");
+  }
+
+  /*
+   * The routing of step-8 before sessions were scoped, reduced to the parts that matter for API requests.
+   */
+  private long sessionOnEveryRoute(TestContext context) throws Exception {
+    Vertx server = Vertx.vertx();
+    int port = FreePort.find();
+    Router router = Router.router(server);
+    router.route().handler(SessionHandler.create(LocalSessionStore.create(server)));
+    router.get("/api/pages").handler(routingContext -> routingContext.response().end("{}"));
+    Async listening = context.async();
+    server.createHttpServer().requestHandler(router).listen(port, context.asyncAssertSuccess(s -> listening.complete()));
+    listening.awaitSuccess(10_000);
+
+    WebClient webClient = WebClient.create(vertx, new WebClientOptions().setDefaultHost("localhost").setDefaultPort(port));
+    long retained = retainedPerRequest(context, webClient.get("/api/pages"));
+
+    Async closed = context.async();
+    server.close(context.asyncAssertSuccess(v -> closed.complete()));
+    closed.awaitSuccess(10_000);
+    return retained;
+  }
+
+  private long scopedSessions(TestContext context) throws Exception {
+    int port = FreePort.find();
+    JsonObject conf = new JsonObject()
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:session-density;shutdown=true")
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4)
+      .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, port);
+    Async deployed = context.async(4);
+    vertx.deployVerticle(new AuthInitializerVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(id -> {
+      deployed.countDown();
+      vertx.deployVerticle(new WikiDatabaseVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(i -> deployed.countDown()));
+      vertx.deployVerticle(new AuthServiceVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(i -> deployed.countDown()));
+      vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions().setConfig(conf), context.asyncAssertSuccess(i -> deployed.countDown()));
+    }));
+    deployed.awaitSuccess(30_000);
+
+    WebClient webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(port)
+      .setSsl(true)
+      .setTrustOptions(new JksOptions().setPath("server-keystore.jks").setPassword("secret")));
+    String[] token = new String[1];
+    Async authenticated = context.async();
+    webClient.get("/api/token")
+      .putHeader("login", "foo")
+      .putHeader("password", "bar")
+      .as(BodyCodec.string())
+      .send(context.asyncAssertSuccess(response -> {
+        token[0] = response.body();
+        authenticated.complete();
+      }));
+    authenticated.awaitSuccess(10_000);
+
+    return retainedPerRequest(context, webClient.get("/api/pages").putHeader("Authorization", "Bearer " + token[0]));
+  }
+
+  /*
+   * Warms up first, so that the caches of the handlers are populated before the heap is measured.
+   */
+  private long retainedPerRequest(TestContext context, HttpRequest<?> request) throws Exception {
+    send(context, request, WARMUP_REQUESTS);
+    long before = usedHeap();
+    send(context, request, REQUESTS);
+    return (usedHeap() - before) / REQUESTS;
+  }
+
+  private static void send(TestContext context, HttpRequest<?> request, int count) {
+    Async responses = context.async(count);
+    for (int i = 0; i < count; i++) {
+      request.send(context.asyncAssertSuccess(response -> {
+        context.assertEquals(200, response.statusCode());
+        responses.countDown();
+      }));
+    }
+    responses.awaitSuccess(60_000);
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.guides.wiki.auth.AuthServiceVerticle;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks that API requests authenticated with JWT do not create sessions. The number of requests can be changed with
+ * {@code -Dapi.requests=N}. {@link SessionDensityTest} measures the heap this saves.
+ *
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class SessionScopeTest {
+
+  private static final int REQUESTS = Integer.getInteger("api.requests", 500);
+
+  private Vertx vertx;
+  private WebClient webClient;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+
+    JsonObject dbConf = new JsonObject()
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:sessions;shutdown=true")
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4);
+
+    vertx.deployVerticle(new AuthInitializerVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
+    vertx.deployVerticle(new WikiDatabaseVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
+    vertx.deployVerticle(new AuthServiceVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
+    vertx.deployVerticle(new HttpServerVerticle(),
+      new DeploymentOptions().setConfig(dbConf), context.asyncAssertSuccess());
+
+    webClient = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost("localhost")
+      .setDefaultPort(8080)
+      .setSsl(true)
+      .setFollowRedirects(false)
+      .setTrustOptions(new JksOptions().setPath("server-keystore.jks").setPassword("secret")));
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void no_sessions_for_api_requests(TestContext context) {
+    Async async = context.async();
+    LocalMap<String, ?> sessions = vertx.sharedData().getLocalMap(LocalSessionStore.DEFAULT_SESSION_MAP_NAME);
+
+    webClient.get("/api/token")
+      .putHeader("login", "foo")
+      .putHeader("password", "bar")
+      .as(BodyCodec.string())
+      .send(context.asyncAssertSuccess(tokenResponse -> {
+        String authorization = "Bearer " + tokenResponse.body();
+        Async requests = context.async(REQUESTS);
+
+        for (int i = 0; i < REQUESTS; i++) {
+          webClient.get("/api/pages")
+            .putHeader("Authorization", authorization)
+            .send(context.asyncAssertSuccess(response -> {
+              context.assertEquals(200, response.statusCode());
+              context.assertNull(response.getHeader("Set-Cookie"));
+              requests.countDown();
+            }));
+        }
+
+        requests.handler(ar -> {
+          context.assertEquals(0, sessions.size());
+
+          webClient.get("/").send(context.asyncAssertSuccess(response -> {
+            context.assertEquals(302, response.statusCode());
+            context.assertEquals(1, sessions.size());
+            async.complete();
+          }));
+        });
+      }));
+  }
+}
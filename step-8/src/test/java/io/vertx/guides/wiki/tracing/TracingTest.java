@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2017 Red Hat, Inc. and/or its affiliates.
+ *  Copyright (c) 2017 INSA Lyon, CITI Laboratory.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vertx.guides.wiki.tracing;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.database.reactivex.WikiDatabaseService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author <a href="https://julien.ponge.org/">Julien Ponge</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class TracingTest {
+
+  private Vertx vertx;
+  private InMemorySpanExporter exporter;
+
+  @Before
+  public void prepare(TestContext context) {
+    vertx = Vertx.vertx();
+    exporter = new InMemorySpanExporter();
+    Tracer.install(vertx, exporter);
+
+    JsonObject conf = new JsonObject()
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:tracing;shutdown=true")
+      .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4);
+
+    vertx.deployVerticle(new WikiDatabaseVerticle(), new DeploymentOptions().setConfig(conf),
+      context.asyncAssertSuccess());
+  }
+
+  @After
+  public void finish(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void trace_crosses_the_event_bus(TestContext context) {
+    Async async = context.async();
+    Span root = Tracer.shared(vertx).root("test");
+    String[] traceparent = root.traceparent().split("-");
+    String traceId = traceparent[1];
+    String rootId = traceparent[2];
+
+    WikiDatabaseService service = io.vertx.guides.wiki.database.WikiDatabaseService.createProxy(vertx,
+      WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE, root.deliveryOptions());
+    service.rxCreatePage("Traced", "Some content").subscribe(() -> {
+      Map<String, JsonObject> spans = exporter.trace(traceId).stream()
+        .collect(Collectors.toMap(span -> span.getString("name"), span -> span));
+
+      JsonObject call = spans.get("WikiDatabaseService createPage");
+      context.assertNotNull(call);
+      context.assertEquals(rootId, call.getString("parentId"));
+      context.assertEquals(WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE, call.getJsonObject("attributes").getString("address"));
+      context.assertFalse(call.getJsonObject("attributes").containsKey("error"));
+      async.complete();
+    }, context::fail);
+  }
+
+  @Test
+  public void sample_rate_applies_to_new_traces_only(TestContext context) {
+    Tracer tracer = Tracer.shared(vertx);
+    String sampledParent = tracer.root("sampled").traceparent();
+
+    Tracer.install(vertx, exporter, 0.0);
+    context.assertFalse(tracer.root("test").isSampled());
+    context.assertTrue(tracer.continueFrom(sampledParent, "test").isSampled());
+
+    Tracer.install(vertx, exporter, 1.0);
+    context.assertTrue(tracer.root("test").isSampled());
+  }
+
+  @Test
+  public void undispatched_call_ends_its_span(TestContext context) {
+    Async async = context.async();
+    Span root = Tracer.shared(vertx).root("test");
+    String traceId = root.traceparent().split("-")[1];
+
+    DeliveryOptions options = root.deliveryOptions().addHeader("action", "noSuchAction");
+    vertx.eventBus().request(WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE, new JsonObject(), options, reply -> {
+      context.assertTrue(reply.failed());
+      // The span is ended once the failed dispatch is over, which may be after the reply has arrived
+      vertx.setPeriodic(10, id -> exporter.trace(traceId).stream()
+        .filter(span -> span.getString("name").equals("WikiDatabaseService noSuchAction"))
+        .findFirst()
+        .ifPresent(span -> {
+          vertx.cancelTimer(id);
+          context.assertTrue(span.getJsonObject("attributes").containsKey("error"));
+          async.complete();
+        }));
+    });
+  }
+}